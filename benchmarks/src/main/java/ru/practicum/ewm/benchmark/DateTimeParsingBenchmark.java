@@ -0,0 +1,54 @@
+package ru.practicum.ewm.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Разбор и форматирование дат в формате API "yyyy-MM-dd HH:mm:ss", как в сервисах и мапперах
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class DateTimeParsingBenchmark {
+    private static final String PATTERN = "yyyy-MM-dd HH:mm:ss";
+    private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern(PATTERN);
+    private final String text = "2024-05-17 18:30:00";
+    private final LocalDateTime dateTime = LocalDateTime.of(2024, 5, 17, 18, 30);
+
+    @Benchmark
+    public LocalDateTime parseSharedFormatter() {
+        return LocalDateTime.parse(text, FORMATTER);
+    }
+
+    @Benchmark
+    public LocalDateTime parseNewFormatter() {
+        return LocalDateTime.parse(text, DateTimeFormatter.ofPattern(PATTERN));
+    }
+
+    @Benchmark
+    public String formatSharedFormatter() {
+        return dateTime.format(FORMATTER);
+    }
+
+    /**
+     * Формат ISO, в котором клиент статистики отправляет время просмотра
+     */
+    @Benchmark
+    public String formatIso() {
+        return dateTime.toString();
+    }
+}
@@ -0,0 +1,137 @@
+package ru.practicum.ewm.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.mock.web.MockHttpServletRequest;
+import ru.practicum.ewm.HitDropPolicy;
+import ru.practicum.ewm.StatsClient;
+import ru.practicum.ewm.category.repository.CategoryRepository;
+import ru.practicum.ewm.category.service.CategoryCatalogue;
+import ru.practicum.ewm.comment.repository.CommentRepository;
+import ru.practicum.ewm.compilation.repository.CompilationRepository;
+import ru.practicum.ewm.compilation.service.PinnedCompilationsSnapshot;
+import ru.practicum.ewm.event.dto.EventFullDto;
+import ru.practicum.ewm.event.dto.EventPage;
+import ru.practicum.ewm.event.dto.EventShortDto;
+import ru.practicum.ewm.event.model.EventCursor;
+import ru.practicum.ewm.event.model.SearchAdmin;
+import ru.practicum.ewm.event.model.SearchUser;
+import ru.practicum.ewm.event.repository.EventPublicViewRepository;
+import ru.practicum.ewm.event.repository.EventRepository;
+import ru.practicum.ewm.event.search.EventSearchIndex;
+import ru.practicum.ewm.event.service.EventDetailsCache;
+import ru.practicum.ewm.event.service.EventServiceImpl;
+import ru.practicum.ewm.location.repository.LocationRepository;
+import ru.practicum.ewm.request.repository.RequestRepository;
+import ru.practicum.ewm.user.repository.UserRepository;
+import ru.practicum.ewm.user.service.KnownUsers;
+import ru.practicum.ewm.utilites.JsonResponseCache;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Сборка условий QueryDSL, сортировки и курсора в поиске событий.
+ * Репозитории возвращают пустой результат, поэтому измеряется только работа сервиса до запроса в БД.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class EventSearchBenchmark {
+    private StatsClient statsClient;
+    private EventServiceImpl eventService;
+    private MockHttpServletRequest request;
+    private SearchAdmin searchAdmin;
+    private SearchAdmin searchAdminCursor;
+    private SearchUser searchUser;
+    private SearchUser searchUserText;
+    private SearchUser searchUserCursor;
+
+    @Setup
+    public void setUp() {
+        statsClient = new StatsClient("http://localhost:9090", 10, 10, 60_000, HitDropPolicy.DROP_NEWEST, 0, 0, 0,
+                new RestTemplateBuilder(), new StaticListableBeanFactory().getBeanProvider(MeterRegistry.class)) {
+            @Override
+            public boolean postEndPointHits(String app, String uri, String ip, LocalDateTime timestamp) {
+                return true;
+            }
+        };
+        EventRepository eventRepository = Fixtures.emptyRepository(EventRepository.class);
+        CacheManager cacheManager = new ConcurrentMapCacheManager(EventDetailsCache.NAME, JsonResponseCache.NAME);
+        eventService = new EventServiceImpl(eventRepository,
+                Fixtures.emptyRepository(EventPublicViewRepository.class),
+                null,
+                Fixtures.emptyRepository(UserRepository.class),
+                new KnownUsers(Fixtures.emptyRepository(UserRepository.class)),
+                new CategoryCatalogue(Fixtures.emptyRepository(CategoryRepository.class)),
+                Fixtures.emptyRepository(LocationRepository.class),
+                Fixtures.emptyRepository(RequestRepository.class),
+                Fixtures.emptyRepository(CommentRepository.class),
+                statsClient,
+                new EventDetailsCache(cacheManager, new JsonResponseCache(cacheManager, new ObjectMapper())),
+                new PinnedCompilationsSnapshot(Fixtures.emptyRepository(CompilationRepository.class)),
+                new EventSearchIndex(eventRepository, "postgres"));
+        request = new MockHttpServletRequest("GET", "/events");
+        String cursor = EventCursor.of(EventCursor.EVENT_DATE, LocalDateTime.of(2024, 6, 1, 12, 0), 10, 500)
+                .encode();
+        searchAdmin = new SearchAdmin(List.of(1L, 2L, 3L), List.of("PUBLISHED", "PENDING"), List.of(1L, 2L),
+                "2024-01-01 00:00:00", "2025-01-01 00:00:00", 0, 10, null);
+        searchAdminCursor = new SearchAdmin(List.of(1L, 2L, 3L), List.of("PUBLISHED", "PENDING"), List.of(1L, 2L),
+                "2024-01-01 00:00:00", "2025-01-01 00:00:00", 0, 10, cursor);
+        searchUser = new SearchUser(null, List.of(1L, 2L), true, "2024-01-01 00:00:00", "2025-01-01 00:00:00",
+                true, "EVENT_DATE", 0, 10, null);
+        searchUserText = new SearchUser("концерт", List.of(1L, 2L), true, "2024-01-01 00:00:00",
+                "2025-01-01 00:00:00", true, "RELEVANCE", 0, 10, null);
+        searchUserCursor = new SearchUser(null, List.of(1L, 2L), true, "2024-01-01 00:00:00",
+                "2025-01-01 00:00:00", true, "EVENT_DATE", 0, 10, cursor);
+    }
+
+    @TearDown
+    public void tearDown() {
+        statsClient.close();
+    }
+
+    @Benchmark
+    public EventPage<EventFullDto> getEventsAdmin() {
+        return eventService.getEventsAdmin(searchAdmin);
+    }
+
+    @Benchmark
+    public EventPage<EventFullDto> getEventsAdminCursor() {
+        return eventService.getEventsAdmin(searchAdminCursor);
+    }
+
+    @Benchmark
+    public EventPage<EventShortDto> getEventUser() {
+        return eventService.getEventUser(searchUser, request);
+    }
+
+    @Benchmark
+    public EventPage<EventShortDto> getEventUserText() {
+        return eventService.getEventUser(searchUserText, request);
+    }
+
+    @Benchmark
+    public EventPage<EventShortDto> getEventUserCursor() {
+        return eventService.getEventUser(searchUserCursor, request);
+    }
+}
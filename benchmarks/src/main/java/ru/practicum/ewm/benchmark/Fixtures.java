@@ -0,0 +1,83 @@
+package ru.practicum.ewm.benchmark;
+
+import org.springframework.data.domain.Page;
+import ru.practicum.ewm.category.model.Category;
+import ru.practicum.ewm.event.model.Event;
+import ru.practicum.ewm.event.model.Status;
+import ru.practicum.ewm.location.model.Location;
+import ru.practicum.ewm.user.model.User;
+
+import java.lang.reflect.Proxy;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Тестовые данные и заглушки репозиториев для бенчмарков
+ */
+final class Fixtures {
+    private static final LocalDateTime NOW = LocalDateTime.of(2024, 1, 1, 12, 0);
+
+    private Fixtures() {
+    }
+
+    static Event event(long id) {
+        return Event.builder()
+                .id(id)
+                .annotation("Аннотация события " + id + ", достаточно длинная для реального запроса")
+                .category(Category.builder().id(id % 10).name("Категория " + id % 10).build())
+                .confirmedRequests(5)
+                .createdOn(NOW.minusDays(10))
+                .description("Описание события " + id)
+                .eventDate(NOW.plusDays(id))
+                .initiator(User.builder().id(id % 100).name("Пользователь " + id % 100)
+                        .email("user" + id + "@mail.ru").build())
+                .location(new Location(id, 55.75, 37.61))
+                .paid(id % 2 == 0)
+                .participantLimit(100)
+                .publishedOn(NOW.minusDays(5))
+                .requestModeration(true)
+                .state(Status.PUBLISHED)
+                .title("Событие " + id)
+                .views(1000)
+                .build();
+    }
+
+    static List<Event> events(int count) {
+        List<Event> events = new ArrayList<>(count);
+        for (long id = 1; id <= count; id++) {
+            events.add(event(id));
+        }
+        return events;
+    }
+
+    /**
+     * Репозиторий, все методы которого возвращают пустой результат: пустую страницу, список или Optional
+     */
+    @SuppressWarnings("unchecked")
+    static <T> T emptyRepository(Class<T> type) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+            Class<?> result = method.getReturnType();
+            if (result.equals(Page.class)) {
+                return Page.empty();
+            }
+            if (result.equals(List.class)) {
+                return List.of();
+            }
+            if (result.equals(Optional.class)) {
+                return Optional.empty();
+            }
+            if (method.getName().equals("hashCode")) {
+                return System.identityHashCode(proxy);
+            }
+            if (method.getName().equals("equals")) {
+                return proxy == args[0];
+            }
+            if (method.getName().equals("toString")) {
+                return type.getSimpleName();
+            }
+            return null;
+        });
+    }
+}
@@ -0,0 +1,77 @@
+package ru.practicum.ewm.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.practicum.ewm.compilation.dto.CompilationDto;
+import ru.practicum.ewm.compilation.dto.CompilationMapper;
+import ru.practicum.ewm.compilation.model.Compilation;
+import ru.practicum.ewm.event.dto.EventFullDto;
+import ru.practicum.ewm.event.dto.EventMapper;
+import ru.practicum.ewm.event.dto.EventShortDto;
+import ru.practicum.ewm.event.model.Event;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Маппинг событий и подборок в DTO
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class MapperBenchmark {
+    @Param({"10", "100"})
+    private int events;
+    private Event event;
+    private List<Event> eventList;
+    private Compilation compilation;
+
+    @Setup
+    public void setUp() {
+        event = Fixtures.event(1);
+        eventList = Fixtures.events(events);
+        compilation = Compilation.builder()
+                .id(1L)
+                .pinned(true)
+                .title("Подборка")
+                .events(eventList)
+                .build();
+    }
+
+    @Benchmark
+    public EventFullDto toEventFullDto() {
+        return EventMapper.toEventFullDto(event);
+    }
+
+    @Benchmark
+    public EventShortDto toEventShortDto() {
+        return EventMapper.toEventShortDto(event);
+    }
+
+    @Benchmark
+    public List<EventShortDto> toEventShortDtoList() {
+        return EventMapper.toEventShortDto(eventList);
+    }
+
+    @Benchmark
+    public List<EventFullDto> toEventFullDtoList() {
+        return EventMapper.toEventFullDto(eventList);
+    }
+
+    @Benchmark
+    public CompilationDto toCompilationDto() {
+        return CompilationMapper.toCompilationDto(compilation);
+    }
+}
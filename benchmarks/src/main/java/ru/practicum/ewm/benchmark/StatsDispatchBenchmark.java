@@ -0,0 +1,104 @@
+package ru.practicum.ewm.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.practicum.ewm.ViewStatsDto;
+import ru.practicum.ewm.model.Granularity;
+import ru.practicum.ewm.repository.RollupRepository;
+import ru.practicum.ewm.repository.StatsJdbcRepository;
+import ru.practicum.ewm.repository.StatsRepository;
+import ru.practicum.ewm.service.ApproxUniqueCounter;
+import ru.practicum.ewm.service.HotUriCounters;
+import ru.practicum.ewm.service.StatsServiceImpl;
+
+import javax.validation.Validation;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Выбор источника в StatsServiceImpl.getViewStats: разбиение интервала на бакеты агрегатов,
+ * счётчики горячих URI и слияние частичных результатов. Репозитории отдают готовые строки без БД.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class StatsDispatchBenchmark {
+    private static final int URIS = 20;
+    private StatsServiceImpl statsService;
+    private String[] uris;
+
+    @Setup
+    public void setUp() {
+        uris = new String[URIS];
+        List<ViewStatsDto> rows = new ArrayList<>(URIS);
+        for (int i = 0; i < URIS; i++) {
+            uris[i] = "/events/" + i;
+            rows.add(new ViewStatsDto("ewm-main-service", uris[i], 10L + i));
+        }
+        RollupRepository rollupRepository = new RollupRepository(null, null) {
+            @Override
+            public List<ViewStatsDto> sumHits(Granularity granularity, LocalDateTime from, LocalDateTime to,
+                                              List<String> uris) {
+                return rows;
+            }
+
+            @Override
+            public void forEachMinute(LocalDateTime from, MinuteConsumer consumer) {
+            }
+        };
+        StatsJdbcRepository statsJdbcRepository = new StatsJdbcRepository(null, null) {
+            @Override
+            public List<ViewStatsDto> countHits(LocalDateTime from, LocalDateTime to, List<String> uris) {
+                return rows;
+            }
+        };
+        ApproxUniqueCounter approxUniqueCounter = new ApproxUniqueCounter(null, statsJdbcRepository, null, 12,
+                false) {
+            @Override
+            public List<ViewStatsDto> countUnique(LocalDateTime from, LocalDateTime to, List<String> uris) {
+                return rows;
+            }
+        };
+        HotUriCounters hotUriCounters = new HotUriCounters(rollupRepository, true, 180, 5000);
+        hotUriCounters.afterPropertiesSet();
+        statsService = new StatsServiceImpl(Fixtures.emptyRepository(StatsRepository.class), statsJdbcRepository,
+                rollupRepository, approxUniqueCounter, hotUriCounters,
+                Validation.buildDefaultValidatorFactory().getValidator());
+    }
+
+    /**
+     * Неуникальные просмотры за месяц с рваными краями: суточные, часовые, минутные бакеты и сырые края
+     */
+    @Benchmark
+    public List<ViewStatsDto> rollups() {
+        return statsService.getViewStats("2024-01-01 10:15:30", "2024-02-01 18:45:10", uris, false, false);
+    }
+
+    @Benchmark
+    public List<ViewStatsDto> rollupsAllUris() {
+        return statsService.getViewStats("2024-01-01 10:15:30", "2024-02-01 18:45:10", null, false, false);
+    }
+
+    @Benchmark
+    public List<ViewStatsDto> approxUnique() {
+        return statsService.getViewStats("2024-01-01 10:15:30", "2024-02-01 18:45:10", uris, true, true);
+    }
+
+    @Benchmark
+    public List<ViewStatsDto> exactUnique() {
+        return statsService.getViewStats("2024-01-01 10:15:30", "2024-02-01 18:45:10", uris, true, false);
+    }
+}
@@ -0,0 +1,107 @@
+package ru.practicum.ewm.loadtest;
+
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpRequest;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * Публичный эндпоинт с генератором запросов, похожих на реальные: разные фильтры, страницы и ID
+ */
+public class Endpoint {
+    private final String name;
+    private final Supplier<HttpRequest> requests;
+
+    private Endpoint(String name, Supplier<HttpRequest> requests) {
+        this.name = name;
+        this.requests = requests;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public HttpRequest next() {
+        return requests.get();
+    }
+
+    /**
+     * Эндпоинты из mix в заданном порядке
+     */
+    public static List<Endpoint> create(Map<String, Integer> mix, String mainUrl, String statsUrl,
+                                        Seeder.SeedData data) {
+        List<Endpoint> endpoints = new ArrayList<>();
+        for (String name : mix.keySet()) {
+            endpoints.add(create(name, mainUrl, statsUrl, data));
+        }
+        return endpoints;
+    }
+
+    private static Endpoint create(String name, String mainUrl, String statsUrl, Seeder.SeedData data) {
+        switch (name) {
+            case "events":
+                return new Endpoint(name, () -> get(mainUrl + "/events?" + eventsQuery(data)));
+            case "event":
+                return new Endpoint(name, () -> get(mainUrl + "/events/" + any(data.getEvents())));
+            case "compilations":
+                return new Endpoint(name, () -> get(mainUrl + "/compilations?pinned="
+                        + ThreadLocalRandom.current().nextBoolean() + "&from=0&size=10"));
+            case "stats":
+                return new Endpoint(name, () -> get(statsUrl + "/stats?" + statsQuery(data)));
+            default:
+                throw new IllegalArgumentException("Неизвестный эндпоинт " + name
+                        + ", доступны events, event, compilations, stats");
+        }
+    }
+
+    private static String eventsQuery(Seeder.SeedData data) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        StringBuilder query = new StringBuilder();
+        query.append("categories=").append(any(data.getCategories()))
+                .append("&categories=").append(any(data.getCategories()));
+        if (random.nextBoolean()) {
+            query.append("&paid=").append(random.nextBoolean());
+        }
+        if (random.nextInt(5) == 0) {
+            query.append("&text=").append(encode(Seeder.WORDS.get(random.nextInt(Seeder.WORDS.size()))));
+        }
+        if (random.nextInt(4) == 0) {
+            query.append("&onlyAvailable=true");
+        }
+        query.append("&sort=").append(random.nextBoolean() ? "EVENT_DATE" : "VIEWS")
+                .append("&from=").append(random.nextInt(3) * 10)
+                .append("&size=10");
+        return query.toString();
+    }
+
+    private static String statsQuery(Seeder.SeedData data) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        LocalDateTime now = LocalDateTime.now();
+        StringBuilder query = new StringBuilder();
+        query.append("start=").append(encode(now.minusDays(1 + random.nextInt(7)).format(Seeder.FORMATTER)))
+                .append("&end=").append(encode(now.format(Seeder.FORMATTER)));
+        for (int i = 0; i < 1 + random.nextInt(10); i++) {
+            query.append("&uris=/events/").append(any(data.getEvents()));
+        }
+        query.append("&unique=").append(random.nextBoolean());
+        return query.toString();
+    }
+
+    private static long any(List<Long> ids) {
+        return ids.get(ThreadLocalRandom.current().nextInt(ids.size()));
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+
+    private static HttpRequest get(String url) {
+        return HttpRequest.newBuilder(URI.create(url)).GET().build();
+    }
+}
@@ -0,0 +1,137 @@
+package ru.practicum.ewm.loadtest;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.net.http.HttpClient;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Открытая модель нагрузки: запросы отправляются с постоянной частотой независимо от ответов.
+ * Задержка считается от запланированного момента отправки, поэтому очередь на стороне клиента
+ * не прячет замедление сервиса. Если ответов ждёт больше max-in-flight запросов, запрос не отправляется
+ * и считается отброшенным.
+ */
+public class LoadGenerator {
+    private static final long MAX_LATENCY_MICROS = TimeUnit.MINUTES.toMicros(10);
+    private final HttpClient client;
+    private final int maxInFlight;
+
+    public LoadGenerator(HttpClient client, int maxInFlight) {
+        this.client = client;
+        this.maxInFlight = maxInFlight;
+    }
+
+    /**
+     * Нагрузка на эндпоинты в пропорции weights
+     *
+     * @param endpoints Эндпоинты
+     * @param weights   Доли по имени эндпоинта
+     * @param rps       Запросов в секунду
+     * @param duration  Длительность
+     * @return Результаты по имени эндпоинта
+     */
+    public Map<String, EndpointResult> run(List<Endpoint> endpoints, Map<String, Integer> weights, int rps,
+                                           Duration duration) throws InterruptedException {
+        int[] cumulative = new int[endpoints.size()];
+        int total = 0;
+        Map<String, EndpointResult> results = new LinkedHashMap<>();
+        for (int i = 0; i < endpoints.size(); i++) {
+            total += weights.getOrDefault(endpoints.get(i).getName(), 1);
+            cumulative[i] = total;
+            results.put(endpoints.get(i).getName(), new EndpointResult());
+        }
+        Semaphore inFlight = new Semaphore(maxInFlight);
+        long interval = TimeUnit.SECONDS.toNanos(1) / rps;
+        long start = System.nanoTime();
+        long end = start + duration.toNanos();
+        long next = start;
+        while (next < end) {
+            long now = System.nanoTime();
+            if (now < next) {
+                LockSupport.parkNanos(next - now);
+                continue;
+            }
+            Endpoint endpoint = pick(endpoints, cumulative, total);
+            EndpointResult result = results.get(endpoint.getName());
+            if (inFlight.tryAcquire()) {
+                long scheduled = next;
+                client.sendAsync(endpoint.next(), HttpResponse.BodyHandlers.discarding())
+                        .whenComplete((response, error) -> {
+                            result.record(System.nanoTime() - scheduled, error == null && response.statusCode() < 400);
+                            inFlight.release();
+                        });
+            } else {
+                result.dropped.increment();
+            }
+            next += interval;
+        }
+        if (!inFlight.tryAcquire(maxInFlight, 60, TimeUnit.SECONDS)) {
+            throw new IllegalStateException("Ответы не получены за минуту после окончания нагрузки");
+        }
+        long elapsed = System.nanoTime() - start;
+        results.values().forEach(result -> result.elapsedNanos = elapsed);
+        return results;
+    }
+
+    private static Endpoint pick(List<Endpoint> endpoints, int[] cumulative, int total) {
+        int value = ThreadLocalRandom.current().nextInt(total);
+        for (int i = 0; i < cumulative.length; i++) {
+            if (value < cumulative[i]) {
+                return endpoints.get(i);
+            }
+        }
+        return endpoints.get(endpoints.size() - 1);
+    }
+
+    public static class EndpointResult {
+        private final Histogram latencies = new ConcurrentHistogram(MAX_LATENCY_MICROS, 3);
+        private final LongAdder errors = new LongAdder();
+        private final LongAdder dropped = new LongAdder();
+        private long elapsedNanos;
+
+        void record(long latencyNanos, boolean success) {
+            latencies.recordValue(Math.min(TimeUnit.NANOSECONDS.toMicros(latencyNanos), MAX_LATENCY_MICROS));
+            if (!success) {
+                errors.increment();
+            }
+        }
+
+        public long getRequests() {
+            return latencies.getTotalCount();
+        }
+
+        public long getErrors() {
+            return errors.sum();
+        }
+
+        public long getDropped() {
+            return dropped.sum();
+        }
+
+        public double getThroughput() {
+            return elapsedNanos == 0 ? 0 : getRequests() * 1e9 / elapsedNanos;
+        }
+
+        public double getP50Millis() {
+            return latencies.getValueAtPercentile(50) / 1000.0;
+        }
+
+        public double getP99Millis() {
+            return latencies.getValueAtPercentile(99) / 1000.0;
+        }
+
+        public double getMaxMillis() {
+            return latencies.getMaxValue() / 1000.0;
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package ru.practicum.ewm.loadtest;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+
+import java.net.URISyntaxException;
+import java.net.http.HttpClient;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+
+/**
+ * Нагрузочный прогон: встроенный PostgreSQL, main-service и stats-server отдельными процессами,
+ * заполнение данными через API и нагрузка на публичные эндпоинты.
+ * <p>
+ * Фазы: прогрев смесью запросов, затем каждый эндпоинт отдельно (по этим фазам считается SQL на запрос)
+ * и смесь запросов в пропорции mix.
+ */
+public class LoadTestApp {
+    private static final String USER = "postgres";
+    private static final String MAIN_DB = "ewm";
+    private static final String STATS_DB = "stats";
+
+    public static void main(String[] args) throws Exception {
+        LoadTestConfig config = LoadTestConfig.parse(args);
+        Path output = Files.createDirectories(config.getOutput());
+        Path services = servicesDirectory();
+        HttpClient client = HttpClient.newBuilder()
+                .executor(Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors() * 2, runnable -> {
+                    Thread thread = new Thread(runnable, "load-client");
+                    thread.setDaemon(true);
+                    return thread;
+                }))
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+        try (EmbeddedPostgres postgres = EmbeddedPostgres.builder()
+                .setServerConfig("shared_preload_libraries", "pg_stat_statements")
+                .setServerConfig("max_connections", "200")
+                .start()) {
+            createDatabase(postgres, MAIN_DB);
+            createDatabase(postgres, STATS_DB);
+            SqlCounter sqlCounter = new SqlCounter(postgres.getPostgresDatabase());
+            try (ServiceProcess stats = ServiceProcess.start("stats-server", services.resolve("stats-server.jar"),
+                    config.get("service-jvm-args"),
+                    serviceArgs(postgres.getJdbcUrl(USER, STATS_DB) + "&reWriteBatchedInserts=true",
+                            config.getStatsArgs(), List.of()), output)) {
+                stats.awaitHealthy(client, Duration.ofMinutes(2));
+                try (ServiceProcess main = ServiceProcess.start("main-service", services.resolve("main-service.jar"),
+                        config.get("service-jvm-args"),
+                        serviceArgs(postgres.getJdbcUrl(USER, MAIN_DB), config.getMainArgs(),
+                                List.of("--emw-stats-server.url=" + stats.getUrl())), output)) {
+                    main.awaitHealthy(client, Duration.ofMinutes(2));
+                    System.out.println("Заполнение данными...");
+                    Seeder.SeedData data = new Seeder(client, main.getUrl(), stats.getUrl(),
+                            Long.parseLong(config.get("seed"))).seed(config);
+                    Report report = run(config, client, sqlCounter, Endpoint.create(config.getMix(), main.getUrl(),
+                            stats.getUrl(), data));
+                    report.print(System.out);
+                    report.write(output.resolve("report.json"));
+                    System.out.println("Отчёт: " + output.resolve("report.json"));
+                }
+            }
+        }
+    }
+
+    private static Report run(LoadTestConfig config, HttpClient client, SqlCounter sqlCounter,
+                              List<Endpoint> endpoints) throws Exception {
+        LoadGenerator generator = new LoadGenerator(client, config.getInt("max-in-flight"));
+        Map<String, Integer> mix = config.getMix();
+        int rps = config.getInt("rps");
+        Report report = new Report(config.getValues());
+        System.out.println("Прогрев...");
+        generator.run(endpoints, mix, rps, Duration.ofSeconds(config.getInt("warmup")));
+        for (Endpoint endpoint : endpoints) {
+            System.out.println("Фаза " + endpoint.getName() + "...");
+            sqlCounter.reset();
+            Map<String, LoadGenerator.EndpointResult> results = generator.run(List.of(endpoint), mix, rps,
+                    Duration.ofSeconds(config.getInt("phase-duration")));
+            report.add("isolated", results, sqlCounter.calls(MAIN_DB), sqlCounter.calls(STATS_DB));
+        }
+        System.out.println("Смешанная нагрузка...");
+        report.add("mixed", generator.run(endpoints, mix, rps, Duration.ofSeconds(config.getInt("duration"))),
+                null, null);
+        return report;
+    }
+
+    private static List<String> serviceArgs(String jdbcUrl, List<String> overrides, List<String> extra) {
+        List<String> args = new ArrayList<>();
+        args.add("--spring.datasource.url=" + jdbcUrl);
+        args.add("--spring.datasource.username=" + USER);
+        args.add("--spring.datasource.password=");
+        args.addAll(extra);
+        // Свойства из командной строки добавляются последними и перекрывают значения выше
+        args.addAll(overrides);
+        return args;
+    }
+
+    private static void createDatabase(EmbeddedPostgres postgres, String name) throws Exception {
+        try (Connection connection = postgres.getPostgresDatabase().getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.execute("CREATE DATABASE " + name);
+        }
+    }
+
+    /**
+     * Каталог services с исполняемыми jar сервисов рядом с jar нагрузочного теста
+     */
+    private static Path servicesDirectory() throws URISyntaxException {
+        Path location = Path.of(LoadTestApp.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+        return location.getParent().resolve("services");
+    }
+}
@@ -0,0 +1,99 @@
+package ru.practicum.ewm.loadtest;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Параметры прогона в виде key=value. Параметры main.* и stats.* передаются соответствующему сервису
+ * как свойства Spring: main.ewm.search.engine=memory превращается в --ewm.search.engine=memory.
+ */
+public class LoadTestConfig {
+    private static final Map<String, String> DEFAULTS = new LinkedHashMap<>();
+
+    static {
+        DEFAULTS.put("rps", "1000");
+        DEFAULTS.put("duration", "60");
+        DEFAULTS.put("phase-duration", "15");
+        DEFAULTS.put("warmup", "15");
+        DEFAULTS.put("users", "100");
+        DEFAULTS.put("categories", "20");
+        DEFAULTS.put("events", "1000");
+        DEFAULTS.put("compilations", "20");
+        DEFAULTS.put("hits", "10000");
+        DEFAULTS.put("mix", "events:50,event:35,compilations:10,stats:5");
+        DEFAULTS.put("max-in-flight", "2000");
+        DEFAULTS.put("seed", "42");
+        DEFAULTS.put("service-jvm-args", "-Xmx1g");
+        DEFAULTS.put("output", "target/load-tests");
+    }
+
+    private final Map<String, String> values;
+    private final List<String> mainArgs = new ArrayList<>();
+    private final List<String> statsArgs = new ArrayList<>();
+
+    private LoadTestConfig(Map<String, String> values) {
+        this.values = values;
+    }
+
+    public static LoadTestConfig parse(String[] args) {
+        LoadTestConfig config = new LoadTestConfig(new HashMap<>(DEFAULTS));
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (separator <= 0) {
+                throw new IllegalArgumentException("Ожидается key=value: " + arg + ", параметры: " + DEFAULTS);
+            }
+            String key = arg.substring(0, separator);
+            String value = arg.substring(separator + 1);
+            if (key.startsWith("main.")) {
+                config.mainArgs.add("--" + key.substring("main.".length()) + "=" + value);
+            } else if (key.startsWith("stats.")) {
+                config.statsArgs.add("--" + key.substring("stats.".length()) + "=" + value);
+            } else if (DEFAULTS.containsKey(key)) {
+                config.values.put(key, value);
+            } else {
+                throw new IllegalArgumentException("Неизвестный параметр " + key + ", параметры: " + DEFAULTS);
+            }
+        }
+        return config;
+    }
+
+    public int getInt(String key) {
+        return Integer.parseInt(values.get(key));
+    }
+
+    public String get(String key) {
+        return values.get(key);
+    }
+
+    public Path getOutput() {
+        return Path.of(values.get("output"));
+    }
+
+    /**
+     * Доли запросов по эндпоинтам из mix=events:50,event:35
+     */
+    public Map<String, Integer> getMix() {
+        Map<String, Integer> mix = new LinkedHashMap<>();
+        for (String part : values.get("mix").split(",")) {
+            String[] weight = part.split(":");
+            mix.put(weight[0].trim(), Integer.parseInt(weight[1].trim()));
+        }
+        return mix;
+    }
+
+    public List<String> getMainArgs() {
+        return mainArgs;
+    }
+
+    public List<String> getStatsArgs() {
+        return statsArgs;
+    }
+
+    public Map<String, String> getValues() {
+        return values;
+    }
+}
@@ -0,0 +1,74 @@
+package ru.practicum.ewm.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Итоги прогона: таблица в консоль и report.json для сравнения между релизами
+ */
+public class Report {
+    private final Map<String, String> config;
+    private final List<Map<String, Object>> rows = new ArrayList<>();
+
+    public Report(Map<String, String> config) {
+        this.config = config;
+    }
+
+    /**
+     * Результаты фазы. SQL на запрос известен только для фаз с одним эндпоинтом.
+     */
+    public void add(String phase, Map<String, LoadGenerator.EndpointResult> results, Long mainSql, Long statsSql) {
+        results.forEach((endpoint, result) -> {
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("phase", phase);
+            row.put("endpoint", endpoint);
+            row.put("requests", result.getRequests());
+            row.put("errors", result.getErrors());
+            row.put("dropped", result.getDropped());
+            row.put("throughput", round(result.getThroughput()));
+            row.put("p50Ms", round(result.getP50Millis()));
+            row.put("p99Ms", round(result.getP99Millis()));
+            row.put("maxMs", round(result.getMaxMillis()));
+            row.put("mainSqlPerRequest", perRequest(mainSql, result.getRequests()));
+            row.put("statsSqlPerRequest", perRequest(statsSql, result.getRequests()));
+            rows.add(row);
+        });
+    }
+
+    public void print(PrintStream out) {
+        String format = "%-10s %-13s %9s %7s %8s %10s %9s %9s %9s %9s %10s%n";
+        out.printf(format, "phase", "endpoint", "requests", "errors", "dropped", "rps", "p50 ms", "p99 ms",
+                "max ms", "sql main", "sql stats");
+        for (Map<String, Object> row : rows) {
+            out.printf(format, row.get("phase"), row.get("endpoint"), row.get("requests"), row.get("errors"),
+                    row.get("dropped"), row.get("throughput"), row.get("p50Ms"), row.get("p99Ms"), row.get("maxMs"),
+                    value(row.get("mainSqlPerRequest")), value(row.get("statsSqlPerRequest")));
+        }
+    }
+
+    public void write(Path file) throws IOException {
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("config", config);
+        report.put("results", rows);
+        new ObjectMapper().writerWithDefaultPrettyPrinter().writeValue(file.toFile(), report);
+    }
+
+    private static Double perRequest(Long calls, long requests) {
+        return calls == null || requests == 0 ? null : round((double) calls / requests);
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 100) / 100.0;
+    }
+
+    private static String value(Object value) {
+        return value == null ? "-" : value.toString();
+    }
+}
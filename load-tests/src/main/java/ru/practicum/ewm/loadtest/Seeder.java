@@ -0,0 +1,178 @@
+package ru.practicum.ewm.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.IntFunction;
+
+/**
+ * Заполнение сервисов через их API: пользователи, категории, опубликованные события, подборки
+ * и просмотры в сервере статистики. Данные проходят те же пути записи, что и в работе.
+ */
+public class Seeder {
+    static final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    static final List<String> WORDS = List.of("концерт", "выставка", "лекция", "фестиваль", "спектакль",
+            "экскурсия", "мастер-класс", "кино", "джаз", "театр", "музей", "квест");
+    private static final int PARALLELISM = 16;
+    private static final int HITS_BATCH = 1000;
+    private final HttpClient client;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final String mainUrl;
+    private final String statsUrl;
+    private final Random random;
+
+    public Seeder(HttpClient client, String mainUrl, String statsUrl, long seed) {
+        this.client = client;
+        this.mainUrl = mainUrl;
+        this.statsUrl = statsUrl;
+        this.random = new Random(seed);
+    }
+
+    public SeedData seed(LoadTestConfig config) throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(PARALLELISM);
+        try {
+            List<Long> users = parallel(executor, config.getInt("users"), i ->
+                    post(mainUrl + "/admin/users", Map.of("name", "Пользователь " + i,
+                            "email", "user" + i + "@load.test")));
+            List<Long> categories = parallel(executor, config.getInt("categories"), i ->
+                    post(mainUrl + "/admin/categories", Map.of("name", "Категория " + i)));
+            List<Map<String, Object>> newEvents = new ArrayList<>();
+            for (int i = 0; i < config.getInt("events"); i++) {
+                newEvents.add(newEvent(i, users, categories));
+            }
+            List<Long> events = parallel(executor, newEvents.size(), i -> {
+                Map<String, Object> event = newEvents.get(i);
+                long eventId = post(mainUrl + "/users/" + event.remove("userId") + "/events", event);
+                send("PATCH", mainUrl + "/admin/events/" + eventId, Map.of("stateAction", "PUBLISH_EVENT"));
+                return eventId;
+            });
+            int compilationCount = config.getInt("compilations");
+            List<List<Long>> compilationEvents = new ArrayList<>();
+            for (int i = 0; i < compilationCount; i++) {
+                List<Long> shuffled = new ArrayList<>(events);
+                Collections.shuffle(shuffled, random);
+                compilationEvents.add(shuffled.subList(0, Math.min(10, shuffled.size())));
+            }
+            parallel(executor, compilationCount, i -> post(mainUrl + "/admin/compilations",
+                    Map.of("events", compilationEvents.get(i), "pinned", i % 2 == 0, "title", "Подборка " + i)));
+            seedHits(executor, events, config.getInt("hits"));
+            return new SeedData(events, categories);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private Map<String, Object> newEvent(int i, List<Long> users, List<Long> categories) {
+        String word = WORDS.get(random.nextInt(WORDS.size()));
+        Map<String, Object> event = new LinkedHashMap<>();
+        event.put("userId", users.get(random.nextInt(users.size())));
+        event.put("annotation", "Аннотация: " + word + " номер " + i + " для нагрузочного теста");
+        event.put("category", categories.get(random.nextInt(categories.size())));
+        event.put("description", "Описание события " + i + ": " + word + ", " + WORDS.get(i % WORDS.size()));
+        event.put("eventDate", LocalDateTime.now().plusDays(1 + random.nextInt(180)).format(FORMATTER));
+        event.put("location", Map.of("lat", 55 + random.nextDouble(), "lon", 37 + random.nextDouble()));
+        event.put("paid", random.nextBoolean());
+        event.put("participantLimit", random.nextInt(4) * 50);
+        event.put("requestModeration", random.nextBoolean());
+        event.put("title", "Событие " + i);
+        return event;
+    }
+
+    private void seedHits(ExecutorService executor, List<Long> events, int hits) throws InterruptedException {
+        LocalDateTime now = LocalDateTime.now();
+        List<List<Map<String, Object>>> batches = new ArrayList<>();
+        List<Map<String, Object>> batch = new ArrayList<>();
+        for (int i = 0; i < hits; i++) {
+            batch.add(Map.of("app", "ewm-main-service",
+                    "uri", "/events/" + events.get(random.nextInt(events.size())),
+                    "ip", "10.0." + random.nextInt(256) + "." + random.nextInt(256),
+                    "timestamp", now.minusSeconds(random.nextInt(7 * 24 * 3600)).format(FORMATTER)));
+            if (batch.size() == HITS_BATCH || i == hits - 1) {
+                batches.add(batch);
+                batch = new ArrayList<>();
+            }
+        }
+        parallel(executor, batches.size(), i -> {
+            send("POST", statsUrl + "/hits", batches.get(i));
+            return 0L;
+        });
+    }
+
+    private List<Long> parallel(ExecutorService executor, int count, IntFunction<Long> task)
+            throws InterruptedException {
+        List<Future<Long>> futures = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int index = i;
+            futures.add(executor.submit(() -> task.apply(index)));
+        }
+        List<Long> ids = new ArrayList<>(count);
+        for (Future<Long> future : futures) {
+            try {
+                ids.add(future.get());
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Не удалось заполнить данные", e.getCause());
+            }
+        }
+        return ids;
+    }
+
+    private long post(String url, Object body) {
+        return send("POST", url, body).get("id").asLong();
+    }
+
+    private JsonNode send(String method, String url, Object body) {
+        try {
+            HttpRequest request = HttpRequest.newBuilder(URI.create(url))
+                    .header("Content-Type", "application/json")
+                    .method(method, HttpRequest.BodyPublishers.ofString(objectMapper.writeValueAsString(body)))
+                    .build();
+            HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() >= 400) {
+                throw new IllegalStateException(method + " " + url + " -> " + response.statusCode() + ": "
+                        + response.body());
+            }
+            return objectMapper.readTree(response.body());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public static class SeedData {
+        private final List<Long> events;
+        private final List<Long> categories;
+
+        SeedData(List<Long> events, List<Long> categories) {
+            this.events = events;
+            this.categories = categories;
+        }
+
+        public List<Long> getEvents() {
+            return events;
+        }
+
+        public List<Long> getCategories() {
+            return categories;
+        }
+    }
+}
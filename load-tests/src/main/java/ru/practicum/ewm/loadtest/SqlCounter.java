@@ -0,0 +1,45 @@
+package ru.practicum.ewm.loadtest;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Количество SQL-запросов к базе по pg_stat_statements. Счётчики общие для кластера,
+ * поэтому сбрасываются перед каждой фазой и читаются с фильтром по базе.
+ */
+public class SqlCounter {
+    private final DataSource dataSource;
+
+    public SqlCounter(DataSource dataSource) throws SQLException {
+        this.dataSource = dataSource;
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("CREATE EXTENSION IF NOT EXISTS pg_stat_statements");
+        }
+    }
+
+    public void reset() throws SQLException {
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("SELECT pg_stat_statements_reset()");
+        }
+    }
+
+    /**
+     * Выполнения запросов к базе с последнего сброса, кроме запросов к самому pg_stat_statements
+     */
+    public long calls(String database) throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement("SELECT coalesce(sum(s.calls), 0) " +
+                     "FROM pg_stat_statements s JOIN pg_database d ON d.oid = s.dbid " +
+                     "WHERE d.datname = ? AND s.query NOT ILIKE '%pg_stat_statements%'")) {
+            statement.setString(1, database);
+            try (ResultSet rs = statement.executeQuery()) {
+                rs.next();
+                return rs.getLong(1);
+            }
+        }
+    }
+}
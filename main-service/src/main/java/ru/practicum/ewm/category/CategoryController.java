@@ -8,11 +8,13 @@ import org.springframework.web.bind.annotation.*;
 import ru.practicum.ewm.category.dto.CategoryDto;
 import ru.practicum.ewm.category.dto.NewCategoryDto;
 import ru.practicum.ewm.category.service.CategoryService;
+import ru.practicum.ewm.utilites.JsonResponseCache;
 
+import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
 import javax.validation.constraints.Positive;
 import javax.validation.constraints.PositiveOrZero;
-import java.util.List;
+import java.io.IOException;
 
 @RestController
 @RequiredArgsConstructor
@@ -20,6 +22,7 @@ import java.util.List;
 @Validated
 public class CategoryController {
     private final CategoryService categoryService;
+    private final JsonResponseCache jsonResponseCache;
 
     /**
      * Создание категории
@@ -63,26 +66,29 @@ public class CategoryController {
     /**
      * Вывод всех категорий
      *
-     * @param from начало списка
-     * @param size количество категорий на странице
-     * @return Категории
+     * @param from     начало списка
+     * @param size     количество категорий на странице
+     * @param response HTTP-ответ, в который пишется готовый JSON категорий
      */
     @GetMapping("/categories")
-    public List<CategoryDto> getCategory(@PositiveOrZero @RequestParam(name = "from", defaultValue = "0") int from,
-                                         @Positive @RequestParam(name = "size", defaultValue = "10") int size) {
+    public void getCategory(@PositiveOrZero @RequestParam(name = "from", defaultValue = "0") int from,
+                            @Positive @RequestParam(name = "size", defaultValue = "10") int size,
+                            HttpServletResponse response) throws IOException {
         log.info("Вывод всех категорий");
-        return categoryService.getCategory(from, size);
+        JsonResponseCache.write(response, jsonResponseCache.get(JsonResponseCache.CATEGORIES,
+                "list:" + from + ':' + size, () -> categoryService.getCategory(from, size)));
     }
 
     /**
      * Вывод категории по ID
      *
-     * @param catId ID категории
-     * @return Категория
+     * @param catId    ID категории
+     * @param response HTTP-ответ, в который пишется готовый JSON категории
      */
     @GetMapping("/categories/{catId}")
-    public CategoryDto getCategoryById(@PathVariable long catId) {
+    public void getCategoryById(@PathVariable long catId, HttpServletResponse response) throws IOException {
         log.info("Вывод категории по ID={}", catId);
-        return categoryService.getCategoryById(catId);
+        JsonResponseCache.write(response, jsonResponseCache.get(JsonResponseCache.CATEGORIES, "id:" + catId,
+                () -> categoryService.getCategoryById(catId)));
     }
 }
@@ -4,5 +4,4 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import ru.practicum.ewm.category.model.Category;
 
 public interface CategoryRepository extends JpaRepository<Category, Long> {
-    Category findFirstByName(String name);
 }
@@ -0,0 +1,146 @@
+package ru.practicum.ewm.category.service;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+import ru.practicum.ewm.category.dto.CategoryDto;
+import ru.practicum.ewm.category.dto.CategoryMapper;
+import ru.practicum.ewm.category.exception.CategoryNotFoundException;
+import ru.practicum.ewm.category.model.Category;
+import ru.practicum.ewm.category.repository.CategoryRepository;
+import ru.practicum.ewm.utilites.AfterCommit;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * Все категории в памяти: чтение категорий и проверка категории события обходятся без запросов к БД.
+ * Снимок неизменяемый, загружается при первом обращении. Создание, изменение и удаление категории
+ * строят новый снимок из текущего и подменяют его целиком, поэтому читатели не видят частичных изменений.
+ * Снимок меняется после фиксации транзакции: откаченное изменение в него не попадает.
+ * <p>
+ * Категория, которой нет в снимке, ищется в БД и при успехе добавляется в снимок: так находятся категории,
+ * созданные в обход сервиса или другим экземпляром. Переименование и удаление категории другим экземпляром
+ * сюда не доходят, как и в KnownIds, поэтому снимок рассчитан на один экземпляр сервиса.
+ */
+@Component
+public class CategoryCatalogue {
+    private final CategoryRepository categoryRepository;
+    private final AtomicLong version = new AtomicLong();
+    private volatile Snapshot snapshot;
+
+    public CategoryCatalogue(CategoryRepository categoryRepository) {
+        this.categoryRepository = categoryRepository;
+    }
+
+    /**
+     * Страница категорий в порядке ID
+     *
+     * @param page Страница
+     * @return Категории
+     */
+    public List<CategoryDto> get(Pageable page) {
+        List<CategoryDto> categories = current().categories;
+        int start = (int) Math.min(page.getOffset(), categories.size());
+        return categories.subList(start, Math.min(start + page.getPageSize(), categories.size()));
+    }
+
+    /**
+     * Категория по ID из снимка, при промахе - из БД
+     *
+     * @param catId ID категории
+     * @return Категория
+     */
+    public CategoryDto get(long catId) {
+        CategoryDto category = current().byId.get(catId);
+        if (category != null) {
+            return category;
+        }
+        CategoryDto loaded = categoryRepository.findById(catId)
+                .map(CategoryMapper::toCategoryDto)
+                .orElseThrow(() -> new CategoryNotFoundException(catId));
+        put(loaded);
+        return loaded;
+    }
+
+    /**
+     * Категория для связи с событием. Сущность не загружается из БД: для внешнего ключа достаточно ID,
+     * а название берётся из снимка
+     *
+     * @param catId ID категории
+     * @return Категория
+     */
+    public Category getReference(long catId) {
+        CategoryDto category = get(catId);
+        return new Category(category.getId(), category.getName());
+    }
+
+    public Optional<CategoryDto> findByName(String name) {
+        return current().categories.stream()
+                .filter(category -> category.getName().equals(name))
+                .findFirst();
+    }
+
+    /**
+     * Добавление или замена категории в снимке после фиксации транзакции изменения
+     *
+     * @param category Категория
+     */
+    public void put(CategoryDto category) {
+        AfterCommit.run(() -> update(byId -> byId.put(category.getId(), category)));
+    }
+
+    /**
+     * Удаление категории из снимка после фиксации транзакции удаления
+     *
+     * @param catId ID категории
+     */
+    public void remove(long catId) {
+        AfterCommit.run(() -> update(byId -> byId.remove(catId)));
+    }
+
+    private synchronized void update(Consumer<Map<Long, CategoryDto>> change) {
+        version.incrementAndGet();
+        Snapshot current = snapshot;
+        if (current == null) {
+            // Снимок ещё не загружен и при загрузке прочитает изменение из БД
+            return;
+        }
+        Map<Long, CategoryDto> byId = new TreeMap<>(current.byId);
+        change.accept(byId);
+        snapshot = new Snapshot(byId.values());
+    }
+
+    private Snapshot current() {
+        Snapshot current = snapshot;
+        if (current != null) {
+            return current;
+        }
+        // Снимок, загруженный параллельно с изменением, может его не содержать и не сохраняется
+        long loadedVersion = version.get();
+        current = new Snapshot(CategoryMapper.toCategoryDto(categoryRepository.findAll(Sort.by("id"))));
+        synchronized (this) {
+            if (snapshot == null && version.get() == loadedVersion) {
+                snapshot = current;
+            }
+        }
+        return current;
+    }
+
+    private static class Snapshot {
+        private final List<CategoryDto> categories;
+        private final Map<Long, CategoryDto> byId;
+
+        private Snapshot(Collection<CategoryDto> categories) {
+            this.categories = List.copyOf(categories);
+            this.byId = categories.stream()
+                    .collect(Collectors.toUnmodifiableMap(CategoryDto::getId, category -> category));
+        }
+    }
+}
@@ -3,15 +3,19 @@ package ru.practicum.ewm.category.service;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import ru.practicum.ewm.category.dto.CategoryDto;
 import ru.practicum.ewm.category.dto.CategoryMapper;
 import ru.practicum.ewm.category.dto.NewCategoryDto;
 import ru.practicum.ewm.category.exception.CategoryNotEmptyException;
-import ru.practicum.ewm.category.exception.CategoryNotFoundException;
 import ru.practicum.ewm.category.exception.DuplicateCategoryNameException;
 import ru.practicum.ewm.category.model.Category;
 import ru.practicum.ewm.category.repository.CategoryRepository;
+import ru.practicum.ewm.compilation.service.PinnedCompilationsSnapshot;
+import ru.practicum.ewm.event.repository.EventPublicViewJdbcRepository;
 import ru.practicum.ewm.event.repository.EventRepository;
+import ru.practicum.ewm.event.service.EventDetailsCache;
+import ru.practicum.ewm.utilites.JsonResponseCache;
 
 import java.util.List;
 
@@ -19,7 +23,12 @@ import java.util.List;
 @RequiredArgsConstructor
 public class CategoryServiceImpl implements CategoryService {
     private final CategoryRepository categoryRepository;
+    private final CategoryCatalogue categoryCatalogue;
     private final EventRepository eventRepository;
+    private final EventDetailsCache eventDetailsCache;
+    private final PinnedCompilationsSnapshot pinnedCompilationsSnapshot;
+    private final EventPublicViewJdbcRepository eventPublicViewJdbcRepository;
+    private final JsonResponseCache jsonResponseCache;
 
     /**
      * Создание категории
@@ -29,11 +38,14 @@ public class CategoryServiceImpl implements CategoryService {
      */
     @Override
     public CategoryDto postCategory(NewCategoryDto newCategoryDto) {
-        if (categoryRepository.findFirstByName(newCategoryDto.getName()) != null) {
+        if (categoryCatalogue.findByName(newCategoryDto.getName()).isPresent()) {
             throw new DuplicateCategoryNameException();
         }
-        return CategoryMapper.toCategoryDto(categoryRepository
+        CategoryDto categoryDto = CategoryMapper.toCategoryDto(categoryRepository
                 .save(CategoryMapper.newCategoryDtoToCategory(newCategoryDto)));
+        categoryCatalogue.put(categoryDto);
+        jsonResponseCache.invalidate(JsonResponseCache.CATEGORIES);
+        return categoryDto;
     }
 
     /**
@@ -43,12 +55,13 @@ public class CategoryServiceImpl implements CategoryService {
      */
     @Override
     public void deleteCategoryById(long catId) {
-        categoryRepository.findById(catId).orElseThrow(() ->
-                new CategoryNotFoundException(catId));
+        categoryCatalogue.get(catId);
         if (!eventRepository.findAllByCategoryId(catId).isEmpty()) {
             throw new CategoryNotEmptyException();
         }
         categoryRepository.deleteById(catId);
+        categoryCatalogue.remove(catId);
+        jsonResponseCache.invalidate(JsonResponseCache.CATEGORIES);
     }
 
     /**
@@ -59,15 +72,22 @@ public class CategoryServiceImpl implements CategoryService {
      * @return Обновленная категория
      */
     @Override
+    @Transactional
     public CategoryDto patchCategoryById(long catId, NewCategoryDto newCategoryDto) {
-        Category category = categoryRepository.findById(catId).orElseThrow(() ->
-                new CategoryNotFoundException(catId));
-        if (categoryRepository.findFirstByName(newCategoryDto.getName()) != null &&
+        Category category = categoryCatalogue.getReference(catId);
+        if (categoryCatalogue.findByName(newCategoryDto.getName()).isPresent() &&
                 !category.getName().equals(newCategoryDto.getName())) {
             throw new DuplicateCategoryNameException();
         }
         category.setName(newCategoryDto.getName());
-        return CategoryMapper.toCategoryDto(categoryRepository.save(category));
+        CategoryDto categoryDto = CategoryMapper.toCategoryDto(categoryRepository.saveAndFlush(category));
+        categoryCatalogue.put(categoryDto);
+        // Название категории входит в витрину, закэшированные события и закрепленные подборки
+        eventPublicViewJdbcRepository.refreshCategory(catId);
+        eventDetailsCache.clear();
+        pinnedCompilationsSnapshot.clear();
+        jsonResponseCache.invalidate(JsonResponseCache.CATEGORIES);
+        return categoryDto;
     }
 
     /**
@@ -79,8 +99,7 @@ public class CategoryServiceImpl implements CategoryService {
      */
     @Override
     public List<CategoryDto> getCategory(int from, int size) {
-        PageRequest page = PageRequest.of(from > 0 ? from / size : 0, size);
-        return CategoryMapper.toCategoryDto(categoryRepository.findAll(page).getContent());
+        return categoryCatalogue.get(PageRequest.of(from > 0 ? from / size : 0, size));
     }
 
     /**
@@ -91,8 +110,6 @@ public class CategoryServiceImpl implements CategoryService {
      */
     @Override
     public CategoryDto getCategoryById(long catId) {
-        Category category = categoryRepository.findById(catId).orElseThrow(() ->
-                new CategoryNotFoundException(catId));
-        return CategoryMapper.toCategoryDto(category);
+        return categoryCatalogue.get(catId);
     }
 }
@@ -9,11 +9,13 @@ import ru.practicum.ewm.compilation.dto.CompilationDto;
 import ru.practicum.ewm.compilation.dto.NewCompilationDto;
 import ru.practicum.ewm.compilation.dto.UpdateCompilationRequest;
 import ru.practicum.ewm.compilation.service.CompilationService;
+import ru.practicum.ewm.utilites.JsonResponseCache;
 
+import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
 import javax.validation.constraints.Positive;
 import javax.validation.constraints.PositiveOrZero;
-import java.util.List;
+import java.io.IOException;
 
 @RestController
 @RequiredArgsConstructor
@@ -21,35 +23,37 @@ import java.util.List;
 @Slf4j
 public class CompilationController {
     private final CompilationService compilationService;
+    private final JsonResponseCache jsonResponseCache;
 
     /**
      * Получение подборки событий
      *
-     * @param pinned Закрепленные или не закрепленные подборки
-     * @param from   с какого элемента начать
-     * @param size   количество на странице
-     * @return Подборки событий
+     * @param pinned   Закрепленные или не закрепленные подборки
+     * @param from     с какого элемента начать
+     * @param size     количество на странице
+     * @param response HTTP-ответ, в который пишется готовый JSON подборок
      */
     @GetMapping("/compilations")
-    @ResponseStatus(HttpStatus.OK)
-    public List<CompilationDto> getCompilation(@RequestParam(name = "pinned", required = false) Boolean pinned,
-                                               @PositiveOrZero @RequestParam(name = "from", defaultValue = "0") int from,
-                                               @Positive @RequestParam(name = "size", defaultValue = "10") int size) {
+    public void getCompilation(@RequestParam(name = "pinned", required = false) Boolean pinned,
+                               @PositiveOrZero @RequestParam(name = "from", defaultValue = "0") int from,
+                               @Positive @RequestParam(name = "size", defaultValue = "10") int size,
+                               HttpServletResponse response) throws IOException {
         log.info("Вывод подборки событий, pinned={}, size={}, from={}", pinned, size, from);
-        return compilationService.getCompilation(pinned, from, size);
+        JsonResponseCache.write(response, jsonResponseCache.get(JsonResponseCache.COMPILATIONS,
+                "list:" + pinned + ':' + from + ':' + size, () -> compilationService.getCompilation(pinned, from, size)));
     }
 
     /**
      * Получение подборки событий по ID
      *
-     * @param compId ID
-     * @return Подборка событий
+     * @param compId   ID
+     * @param response HTTP-ответ, в который пишется готовый JSON подборки
      */
     @GetMapping("/compilations/{compId}")
-    @ResponseStatus(HttpStatus.OK)
-    public CompilationDto getCompilationById(@PathVariable long compId) {
+    public void getCompilationById(@PathVariable long compId, HttpServletResponse response) throws IOException {
         log.info("Вывод подборки событий по ID={}", compId);
-        return compilationService.getCompilationById(compId);
+        JsonResponseCache.write(response, jsonResponseCache.get(JsonResponseCache.COMPILATIONS, "id:" + compId,
+                () -> compilationService.getCompilationById(compId)));
     }
 
     /**
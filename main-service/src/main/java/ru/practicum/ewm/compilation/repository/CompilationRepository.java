@@ -1,12 +1,40 @@
 package ru.practicum.ewm.compilation.repository;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import ru.practicum.ewm.compilation.model.Compilation;
 
-import org.springframework.data.domain.Pageable;
-
+import javax.persistence.QueryHint;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
+/**
+ * Подборки читаются вместе с событиями, их категориями и инициаторами: сначала страница ID,
+ * затем один запрос с join fetch по этим ID. Постраничный join fetch коллекции Hibernate выполнил бы в памяти.
+ */
 public interface CompilationRepository extends JpaRepository<Compilation, Long> {
-    List<Compilation> findAllByPinned(Boolean pinned, Pageable pageable);
+    @Query("select c.id from Compilation c where c.pinned = :pinned")
+    List<Long> findIdsByPinned(@Param("pinned") boolean pinned, Pageable pageable);
+
+    @Query("select c.id from Compilation c")
+    List<Long> findIds(Pageable pageable);
+
+    @Query("select distinct c from Compilation c left join fetch c.events e left join fetch e.category " +
+            "left join fetch e.initiator where c.id in :ids")
+    @QueryHints(@QueryHint(name = "hibernate.query.passDistinctThrough", value = "false"))
+    List<Compilation> findAllWithEventsByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query("select distinct c from Compilation c left join fetch c.events e left join fetch e.category " +
+            "left join fetch e.initiator where c.pinned = true order by c.id")
+    @QueryHints(@QueryHint(name = "hibernate.query.passDistinctThrough", value = "false"))
+    List<Compilation> findAllPinnedWithEvents();
+
+    @Query("select distinct c from Compilation c left join fetch c.events e left join fetch e.category " +
+            "left join fetch e.initiator where c.id = :id")
+    @QueryHints(@QueryHint(name = "hibernate.query.passDistinctThrough", value = "false"))
+    Optional<Compilation> findWithEventsById(@Param("id") long id);
 }
@@ -2,6 +2,7 @@ package ru.practicum.ewm.compilation.service;
 
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import ru.practicum.ewm.compilation.dto.CompilationDto;
 import ru.practicum.ewm.compilation.dto.CompilationMapper;
@@ -12,14 +13,20 @@ import ru.practicum.ewm.compilation.model.Compilation;
 import ru.practicum.ewm.compilation.repository.CompilationRepository;
 import ru.practicum.ewm.event.model.Event;
 import ru.practicum.ewm.event.repository.EventRepository;
+import ru.practicum.ewm.utilites.JsonResponseCache;
 
 import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class CompilationServiceImpl implements CompilationService {
     private final CompilationRepository compilationRepository;
     private final EventRepository eventRepository;
+    private final PinnedCompilationsSnapshot pinnedCompilationsSnapshot;
+    private final JsonResponseCache jsonResponseCache;
 
     /**
      * Получение подборки событий
@@ -31,12 +38,21 @@ public class CompilationServiceImpl implements CompilationService {
      */
     @Override
     public List<CompilationDto> getCompilation(Boolean pinned, int from, int size) {
-        PageRequest page = PageRequest.of(from > 0 ? from / size : 0, size);
-        if (pinned != null) {
-            return CompilationMapper.toCompilationDto(compilationRepository.findAllByPinned(pinned, page));
-        } else {
-            return CompilationMapper.toCompilationDto(compilationRepository.findAll(page).getContent());
+        PageRequest page = PageRequest.of(from > 0 ? from / size : 0, size, Sort.by("id"));
+        if (Boolean.TRUE.equals(pinned)) {
+            return pinnedCompilationsSnapshot.get(page);
+        }
+        List<Long> ids = pinned != null ? compilationRepository.findIdsByPinned(pinned, page)
+                : compilationRepository.findIds(page);
+        if (ids.isEmpty()) {
+            return List.of();
         }
+        Map<Long, Compilation> compilations = compilationRepository.findAllWithEventsByIdIn(ids).stream()
+                .collect(Collectors.toMap(Compilation::getId, Function.identity()));
+        return ids.stream()
+                .map(compilations::get)
+                .map(CompilationMapper::toCompilationDto)
+                .collect(Collectors.toList());
     }
 
     /**
@@ -47,7 +63,7 @@ public class CompilationServiceImpl implements CompilationService {
      */
     @Override
     public CompilationDto getCompilationById(long compId) {
-        return CompilationMapper.toCompilationDto(compilationRepository.findById(compId).orElseThrow(() ->
+        return CompilationMapper.toCompilationDto(compilationRepository.findWithEventsById(compId).orElseThrow(() ->
                 new CompilationNotFoundException(compId)));
     }
 
@@ -59,14 +75,19 @@ public class CompilationServiceImpl implements CompilationService {
      */
     @Override
     public CompilationDto postCompilation(NewCompilationDto newCompilationDto) {
+        Compilation compilation;
         if (newCompilationDto.getEvents() != null) {
             List<Event> events = eventRepository.findAllByIdIn(newCompilationDto.getEvents());
-            return CompilationMapper.toCompilationDto(compilationRepository
-                    .save(CompilationMapper.newCompilationDtoToCompilation(newCompilationDto, events)));
+            compilation = compilationRepository
+                    .save(CompilationMapper.newCompilationDtoToCompilation(newCompilationDto, events));
         } else {
-            return CompilationMapper.toCompilationDto(compilationRepository
-                    .save(CompilationMapper.newCompilationDtoToCompilation(newCompilationDto)));
+            compilation = compilationRepository.save(CompilationMapper.newCompilationDtoToCompilation(newCompilationDto));
         }
+        if (Boolean.TRUE.equals(compilation.getPinned())) {
+            pinnedCompilationsSnapshot.clear();
+        }
+        jsonResponseCache.invalidate(JsonResponseCache.COMPILATIONS);
+        return CompilationMapper.toCompilationDto(compilation);
     }
 
     /**
@@ -76,9 +97,13 @@ public class CompilationServiceImpl implements CompilationService {
      */
     @Override
     public void deleteCompilationById(long compId) {
-        compilationRepository.findById(compId).orElseThrow(() ->
+        Compilation compilation = compilationRepository.findById(compId).orElseThrow(() ->
                 new CompilationNotFoundException(compId));
         compilationRepository.deleteById(compId);
+        if (Boolean.TRUE.equals(compilation.getPinned())) {
+            pinnedCompilationsSnapshot.clear();
+        }
+        jsonResponseCache.invalidate(JsonResponseCache.COMPILATIONS);
     }
 
     /**
@@ -90,8 +115,9 @@ public class CompilationServiceImpl implements CompilationService {
      */
     @Override
     public CompilationDto patchCompilation(long compId, UpdateCompilationRequest updateCompilationRequest) {
-        Compilation compilation = compilationRepository.findById(compId).orElseThrow(() ->
+        Compilation compilation = compilationRepository.findWithEventsById(compId).orElseThrow(() ->
                 new CompilationNotFoundException(compId));
+        boolean wasPinned = Boolean.TRUE.equals(compilation.getPinned());
         if (updateCompilationRequest.getEvents() != null) {
             List<Event> events = eventRepository.findAllByIdIn(updateCompilationRequest.getEvents());
             compilation.setEvents(events);
@@ -102,6 +128,11 @@ public class CompilationServiceImpl implements CompilationService {
         if (updateCompilationRequest.getTitle() != null) {
             compilation.setTitle(updateCompilationRequest.getTitle());
         }
-        return CompilationMapper.toCompilationDto(compilationRepository.save(compilation));
+        CompilationDto compilationDto = CompilationMapper.toCompilationDto(compilationRepository.save(compilation));
+        if (wasPinned || Boolean.TRUE.equals(compilation.getPinned())) {
+            pinnedCompilationsSnapshot.clear();
+        }
+        jsonResponseCache.invalidate(JsonResponseCache.COMPILATIONS);
+        return compilationDto;
     }
 }
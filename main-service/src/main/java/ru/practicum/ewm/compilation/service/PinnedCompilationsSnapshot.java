@@ -0,0 +1,101 @@
+package ru.practicum.ewm.compilation.service;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+import ru.practicum.ewm.compilation.dto.CompilationDto;
+import ru.practicum.ewm.compilation.dto.CompilationMapper;
+import ru.practicum.ewm.compilation.repository.CompilationRepository;
+import ru.practicum.ewm.event.dto.EventShortDto;
+import ru.practicum.ewm.utilites.AfterCommit;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Снимок закрепленных подборок для главной страницы. Строится при первом чтении после сброса.
+ * Сбрасывается после фиксации изменений подборок и событий, входящих в закрепленные подборки:
+ * снимок, построенный до фиксации, иначе пережил бы сброс со старыми данными.
+ */
+@Component
+public class PinnedCompilationsSnapshot {
+    private final CompilationRepository compilationRepository;
+    private final AtomicLong version = new AtomicLong();
+    private volatile Snapshot snapshot;
+
+    public PinnedCompilationsSnapshot(CompilationRepository compilationRepository) {
+        this.compilationRepository = compilationRepository;
+    }
+
+    /**
+     * Страница закрепленных подборок
+     *
+     * @param page Страница
+     * @return Подборки событий
+     */
+    public List<CompilationDto> get(Pageable page) {
+        List<CompilationDto> compilations = current().compilations;
+        int start = (int) Math.min(page.getOffset(), compilations.size());
+        return compilations.subList(start, Math.min(start + page.getPageSize(), compilations.size()));
+    }
+
+    /**
+     * Сброс снимка после фиксации транзакции, если событие входит в закрепленную подборку
+     *
+     * @param eventIds ID измененных событий
+     */
+    public void evictEvents(Collection<Long> eventIds) {
+        List<Long> ids = List.copyOf(eventIds);
+        AfterCommit.run(() -> {
+            Snapshot current = snapshot;
+            if (current != null && ids.stream().anyMatch(current.eventIds::contains)) {
+                reset();
+            }
+        });
+    }
+
+    /**
+     * Сброс снимка после фиксации транзакции
+     */
+    public void clear() {
+        AfterCommit.run(this::reset);
+    }
+
+    private synchronized void reset() {
+        version.incrementAndGet();
+        snapshot = null;
+    }
+
+    private Snapshot current() {
+        Snapshot current = snapshot;
+        if (current != null) {
+            return current;
+        }
+        // Снимок, построенный параллельно со сбросом, может быть устаревшим и не сохраняется
+        long loadedVersion = version.get();
+        List<CompilationDto> compilations = List.copyOf(CompilationMapper
+                .toCompilationDto(compilationRepository.findAllPinnedWithEvents()));
+        current = new Snapshot(compilations);
+        synchronized (this) {
+            if (version.get() == loadedVersion) {
+                snapshot = current;
+            }
+        }
+        return current;
+    }
+
+    private static class Snapshot {
+        private final List<CompilationDto> compilations;
+        private final Set<Long> eventIds;
+
+        private Snapshot(List<CompilationDto> compilations) {
+            this.compilations = compilations;
+            this.eventIds = compilations.stream()
+                    .flatMap(compilation -> compilation.getEvents().stream())
+                    .map(EventShortDto::getId)
+                    .collect(Collectors.toUnmodifiableSet());
+        }
+    }
+}
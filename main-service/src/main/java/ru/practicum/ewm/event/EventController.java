@@ -10,13 +10,17 @@ import ru.practicum.ewm.comment.dto.NewCommentDto;
 import ru.practicum.ewm.event.dto.*;
 import ru.practicum.ewm.event.model.SearchAdmin;
 import ru.practicum.ewm.event.model.SearchUser;
+import ru.practicum.ewm.event.service.EventDetailsCache;
 import ru.practicum.ewm.event.service.EventService;
 import ru.practicum.ewm.request.dto.ParticipationRequestDto;
+import ru.practicum.ewm.utilites.JsonResponseCache;
 
 import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
 import javax.validation.constraints.Positive;
 import javax.validation.constraints.PositiveOrZero;
+import java.io.IOException;
 import java.util.List;
 
 @RestController
@@ -24,7 +28,9 @@ import java.util.List;
 @Validated
 @Slf4j
 public class EventController {
+    private static final String NEXT_CURSOR_HEADER = "Next-Cursor";
     private final EventService eventService;
+    private final EventDetailsCache eventDetailsCache;
 
     /**
      * Вывод событий определенного пользователя
@@ -190,6 +196,8 @@ public class EventController {
      * @param rangeEnd   Конец диапазона
      * @param from       с какого элемента выводить
      * @param size       количество элементов на странице
+     * @param cursor     Курсор постраничного вывода по ключу, пустой для первой страницы
+     * @param response   HTTP-ответ, курсор следующей страницы возвращается в заголовке Next-Cursor
      * @return События
      */
     @GetMapping("/admin/events")
@@ -199,11 +207,14 @@ public class EventController {
                                              @RequestParam(name = "rangeStart", required = false) String rangeStart,
                                              @RequestParam(name = "rangeEnd", required = false) String rangeEnd,
                                              @PositiveOrZero @RequestParam(name = "from", defaultValue = "0") int from,
-                                             @Positive @RequestParam(name = "size", defaultValue = "10") int size) {
+                                             @Positive @RequestParam(name = "size", defaultValue = "10") int size,
+                                             @RequestParam(name = "cursor", required = false) String cursor,
+                                             HttpServletResponse response) {
         log.info("Поиск событий админом с критериями: users={}, states={}, categories={}, rangeStart={}, " +
-                "rangeEnd={}, from={}, size={}", users, states, categories, rangeStart, rangeEnd, from, size);
-        return eventService.getEventsAdmin(
-                new SearchAdmin(users, states, categories, rangeStart, rangeEnd, from, size));
+                        "rangeEnd={}, from={}, size={}, cursor={}", users, states, categories, rangeStart, rangeEnd,
+                from, size, cursor);
+        return withNextCursor(eventService.getEventsAdmin(
+                new SearchAdmin(users, states, categories, rangeStart, rangeEnd, from, size, cursor)), response);
     }
 
     /**
@@ -230,10 +241,12 @@ public class EventController {
      * @param rangeStart    Начало диапазона поиска
      * @param rangeEnd      Конец диапазона поиска
      * @param onlyAvailable Доступные или нет
-     * @param sort          Сортировка
+     * @param sort          Сортировка: EVENT_DATE, VIEWS или RELEVANCE (по релевантности text)
      * @param from          с какого элемента выводить
      * @param size          количество элементов на странице
+     * @param cursor        Курсор постраничного вывода по ключу, пустой для первой страницы
      * @param request       HTTP-запрос
+     * @param response      HTTP-ответ, курсор следующей страницы возвращается в заголовке Next-Cursor
      * @return События
      */
     @GetMapping("/events")
@@ -255,26 +268,32 @@ public class EventController {
                                             int from,
                                             @Positive @RequestParam(name = "size", defaultValue = "10")
                                             int size,
-                                            HttpServletRequest request) {
+                                            @RequestParam(name = "cursor", required = false)
+                                            String cursor,
+                                            HttpServletRequest request,
+                                            HttpServletResponse response) {
         log.info("Получение событий с по критериям text={}, categories={}, paid={}, rangeStart={}, rangeEnd={}," +
-                        " onlyAvailable={}, sort={}, from={}, size={}", text, categories, paid, rangeStart,
-                rangeEnd, onlyAvailable, sort, from, size);
-        return eventService.getEventUser(new SearchUser(text, categories, paid, rangeStart, rangeEnd,
-                onlyAvailable, sort, from, size), request);
+                        " onlyAvailable={}, sort={}, from={}, size={}, cursor={}", text, categories, paid, rangeStart,
+                rangeEnd, onlyAvailable, sort, from, size, cursor);
+        return withNextCursor(eventService.getEventUser(new SearchUser(text, categories, paid, rangeStart, rangeEnd,
+                onlyAvailable, sort, from, size, cursor), request), response);
     }
 
     /**
-     * Вывод события по ID
+     * Вывод события по ID. Просмотр учитывается и при ответе из кэша.
      *
-     * @param eventId ID события
-     * @param request HTTP-запрос
-     * @return Событие
+     * @param eventId  ID события
+     * @param request  HTTP-запрос
+     * @param response HTTP-ответ, в который пишется готовый JSON события
      */
     @GetMapping("/events/{eventId}")
-    public EventFullDto getEventId(@PathVariable long eventId,
-                                   HttpServletRequest request) {
+    public void getEventId(@PathVariable long eventId,
+                           HttpServletRequest request,
+                           HttpServletResponse response) throws IOException {
         log.info("Получение информации о событии с ID={}", eventId);
-        return eventService.getEventId(eventId, request);
+        byte[] event = eventDetailsCache.get(eventId, () -> eventService.getEventId(eventId));
+        eventService.postEventHit(request);
+        JsonResponseCache.write(response, event);
     }
 
     /**
@@ -288,4 +307,11 @@ public class EventController {
         log.info("Вывод комментариев события с ID={}", eventId);
         return eventService.getComments(eventId);
     }
+
+    private static <T> List<T> withNextCursor(EventPage<T> page, HttpServletResponse response) {
+        if (page.getNextCursor() != null) {
+            response.setHeader(NEXT_CURSOR_HEADER, page.getNextCursor());
+        }
+        return page.getEvents();
+    }
 }
@@ -1,12 +1,16 @@
 package ru.practicum.ewm.event.dto;
 
+import ru.practicum.ewm.category.dto.CategoryDto;
 import ru.practicum.ewm.category.dto.CategoryMapper;
 import ru.practicum.ewm.category.model.Category;
 import ru.practicum.ewm.event.model.Event;
+import ru.practicum.ewm.event.model.EventPublicView;
 import ru.practicum.ewm.event.model.Status;
+import ru.practicum.ewm.location.dto.LocationDto;
 import ru.practicum.ewm.location.dto.LocationMapper;
 import ru.practicum.ewm.location.model.Location;
 import ru.practicum.ewm.user.dto.UserMapper;
+import ru.practicum.ewm.user.dto.UserShortDto;
 import ru.practicum.ewm.user.model.User;
 
 import java.time.LocalDateTime;
@@ -83,4 +87,45 @@ public class EventMapper {
                 .map(EventMapper::toEventFullDto)
                 .collect(Collectors.toList());
     }
-}
\ No newline at end of file
+
+    public static EventShortDto publicViewToEventShortDto(EventPublicView event) {
+        return EventShortDto.builder()
+                .annotation(event.getAnnotation())
+                .category(CategoryDto.builder().id(event.getCategoryId()).name(event.getCategoryName()).build())
+                .confirmedRequests(event.getConfirmedRequests())
+                .eventDate(event.getEventDate().format(FORMATTER))
+                .id(event.getId())
+                .initiator(UserShortDto.builder().id(event.getInitiatorId()).name(event.getInitiatorName()).build())
+                .paid(event.getPaid())
+                .title(event.getTitle())
+                .views(event.getViews())
+                .build();
+    }
+
+    public static List<EventShortDto> publicViewToEventShortDto(List<EventPublicView> events) {
+        return events.stream()
+                .map(EventMapper::publicViewToEventShortDto)
+                .collect(Collectors.toList());
+    }
+
+    public static EventFullDto publicViewToEventFullDto(EventPublicView event) {
+        return EventFullDto.builder()
+                .annotation(event.getAnnotation())
+                .category(CategoryDto.builder().id(event.getCategoryId()).name(event.getCategoryName()).build())
+                .confirmedRequests(event.getConfirmedRequests())
+                .createdOn(event.getCreatedOn().format(FORMATTER))
+                .description(event.getDescription())
+                .eventDate(event.getEventDate().format(FORMATTER))
+                .id(event.getId())
+                .initiator(UserShortDto.builder().id(event.getInitiatorId()).name(event.getInitiatorName()).build())
+                .location(LocationDto.builder().lat(event.getLat()).lon(event.getLon()).build())
+                .paid(event.getPaid())
+                .participantLimit(event.getParticipantLimit())
+                .publishedOn(event.getPublishedOn() == null ? null : event.getPublishedOn().format(FORMATTER))
+                .requestModeration(event.getRequestModeration())
+                .state(Status.PUBLISHED.toString())
+                .title(event.getTitle())
+                .views(event.getViews())
+                .build();
+    }
+}
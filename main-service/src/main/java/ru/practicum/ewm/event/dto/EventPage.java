@@ -0,0 +1,13 @@
+package ru.practicum.ewm.event.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+public class EventPage<T> {
+    private List<T> events;
+    private String nextCursor;
+}
@@ -0,0 +1,7 @@
+package ru.practicum.ewm.event.exception;
+
+public class IncorrectCursorException extends RuntimeException {
+    public IncorrectCursorException() {
+        super("Некорректный курсор");
+    }
+}
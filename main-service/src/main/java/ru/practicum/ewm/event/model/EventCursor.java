@@ -0,0 +1,106 @@
+package ru.practicum.ewm.event.model;
+
+import com.querydsl.core.types.OrderSpecifier;
+import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.core.types.dsl.DateTimePath;
+import com.querydsl.core.types.dsl.NumberPath;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import ru.practicum.ewm.event.exception.IncorrectCursorException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Позиция в выдаче событий для постраничного вывода по ключу: страница начинается
+ * сразу после последнего события предыдущей, поэтому дальние страницы не требуют OFFSET.
+ * Порядок EVENT_DATE - (eventDate, id) по возрастанию, VIEWS - views по убыванию, затем id по возрастанию.
+ */
+@Data
+@AllArgsConstructor
+public class EventCursor {
+    public static final String EVENT_DATE = "EVENT_DATE";
+    public static final String VIEWS = "VIEWS";
+    public static final Keys EVENT_KEYS = new Keys(QEvent.event.eventDate, QEvent.event.views, QEvent.event.id);
+    public static final Keys PUBLIC_VIEW_KEYS = new Keys(QEventPublicView.eventPublicView.eventDate,
+            QEventPublicView.eventPublicView.views, QEventPublicView.eventPublicView.id);
+    private final String order;
+    private final String value;
+    private final long id;
+
+    /**
+     * Разбор курсора, выданного предыдущей страницей. Пустой курсор - первая страница.
+     *
+     * @param token Курсор
+     * @param order Порядок текущего запроса
+     * @return Позиция или null для первой страницы
+     */
+    public static EventCursor decode(String token, String order) {
+        if (token.isEmpty()) {
+            return null;
+        }
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8).split("\\|");
+            if (parts.length != 3 || !parts[0].equals(order)) {
+                throw new IncorrectCursorException();
+            }
+            EventCursor cursor = new EventCursor(parts[0], parts[1], Long.parseLong(parts[2]));
+            cursor.after(EVENT_KEYS);
+            return cursor;
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new IncorrectCursorException();
+        }
+    }
+
+    public static EventCursor of(String order, LocalDateTime eventDate, Integer views, long id) {
+        return new EventCursor(order, VIEWS.equals(order) ? String.valueOf(views) : eventDate.toString(), id);
+    }
+
+    public static OrderSpecifier<?>[] orderBy(String order, Keys keys) {
+        if (VIEWS.equals(order)) {
+            return new OrderSpecifier<?>[]{keys.views.desc(), keys.id.asc()};
+        }
+        return new OrderSpecifier<?>[]{keys.eventDate.asc(), keys.id.asc()};
+    }
+
+    public String encode() {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((order + '|' + value + '|' + id).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Условие "строго после позиции курсора" в порядке orderBy
+     */
+    public BooleanExpression after(Keys keys) {
+        if (VIEWS.equals(order)) {
+            int views = Integer.parseInt(value);
+            return keys.views.lt(views).or(keys.views.eq(views).and(keys.id.gt(id)));
+        }
+        LocalDateTime eventDate = LocalDateTime.parse(value);
+        return keys.eventDate.gt(eventDate).or(keys.eventDate.eq(eventDate).and(keys.id.gt(id)));
+    }
+
+    /**
+     * Проверка "строго после позиции курсора" в порядке orderBy для событий вне БД
+     */
+    public boolean isAfter(LocalDateTime eventDate, int views, long id) {
+        if (VIEWS.equals(order)) {
+            int cursorViews = Integer.parseInt(value);
+            return views < cursorViews || views == cursorViews && id > this.id;
+        }
+        int compared = eventDate.compareTo(LocalDateTime.parse(value));
+        return compared > 0 || compared == 0 && id > this.id;
+    }
+
+    /**
+     * Поля ключа в сущности, по которой идёт выдача
+     */
+    @AllArgsConstructor
+    public static class Keys {
+        private final DateTimePath<LocalDateTime> eventDate;
+        private final NumberPath<Integer> views;
+        private final NumberPath<Long> id;
+    }
+}
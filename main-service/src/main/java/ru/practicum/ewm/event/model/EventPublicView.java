@@ -0,0 +1,63 @@
+package ru.practicum.ewm.event.model;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Immutable;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import java.time.LocalDateTime;
+
+/**
+ * Строка денормализованной витрины опубликованных событий event_public_view.
+ * Витрина заполняется из events, categories, users и locations в транзакциях изменения этих данных
+ * через EventPublicViewJdbcRepository и только читается через JPA.
+ */
+@Getter
+@NoArgsConstructor
+@Entity
+@Immutable
+@Table(name = "event_public_view")
+public class EventPublicView {
+    @Id
+    @Column(name = "id")
+    private Long id;
+    @Column(name = "annotation")
+    private String annotation;
+    @Column(name = "description")
+    private String description;
+    @Column(name = "title")
+    private String title;
+    @Column(name = "category_id")
+    private Long categoryId;
+    @Column(name = "category_name")
+    private String categoryName;
+    @Column(name = "initiator_id")
+    private Long initiatorId;
+    @Column(name = "initiator_name")
+    private String initiatorName;
+    @Column(name = "lat")
+    private Double lat;
+    @Column(name = "lon")
+    private Double lon;
+    @Column(name = "paid")
+    private Boolean paid;
+    @Column(name = "participant_limit")
+    private Integer participantLimit;
+    @Column(name = "confirmed_requests")
+    private Integer confirmedRequests;
+    @Column(name = "available", insertable = false, updatable = false)
+    private Boolean available;
+    @Column(name = "request_moderation")
+    private Boolean requestModeration;
+    @Column(name = "event_date")
+    private LocalDateTime eventDate;
+    @Column(name = "created_on")
+    private LocalDateTime createdOn;
+    @Column(name = "published_on")
+    private LocalDateTime publishedOn;
+    @Column(name = "views")
+    private Integer views;
+}
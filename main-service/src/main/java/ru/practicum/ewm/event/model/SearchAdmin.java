@@ -15,4 +15,5 @@ public class SearchAdmin {
     private String rangeEnd;
     private int from;
     private int size;
+    private String cursor;
 }
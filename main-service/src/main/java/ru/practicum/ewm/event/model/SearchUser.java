@@ -17,4 +17,5 @@ public class SearchUser {
     private String sort;
     private int from;
     private int size;
+    private String cursor;
 }
@@ -0,0 +1,88 @@
+package ru.practicum.ewm.event.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+import ru.practicum.ewm.event.search.EventSearchIndex;
+import ru.practicum.ewm.utilites.AfterCommit;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Обновление витрины event_public_view из events, categories, users и locations.
+ * Вызывается в транзакции изменения исходных данных, поэтому они должны быть сброшены в БД до вызова.
+ */
+@Repository
+@RequiredArgsConstructor
+public class EventPublicViewJdbcRepository {
+    private static final String UPSERT = "INSERT INTO event_public_view (id, annotation, description, title, " +
+            "category_id, category_name, initiator_id, initiator_name, lat, lon, paid, participant_limit, " +
+            "confirmed_requests, request_moderation, event_date, created_on, published_on, views) " +
+            "SELECT e.id, e.annotation, e.description, e.title, c.id, c.name, u.id, u.name, l.lat, l.lon, e.paid, " +
+            "e.participant_limit, e.confirmed_requests, e.request_moderation, e.event_date, e.created_on, " +
+            "e.published_on, e.views " +
+            "FROM events e " +
+            "JOIN categories c ON c.id = e.category_id " +
+            "JOIN users u ON u.id = e.initiator_id " +
+            "JOIN locations l ON l.id = e.location_id " +
+            "WHERE e.state = 'PUBLISHED' AND %s " +
+            "ON CONFLICT (id) DO UPDATE SET annotation = EXCLUDED.annotation, description = EXCLUDED.description, " +
+            "title = EXCLUDED.title, category_id = EXCLUDED.category_id, category_name = EXCLUDED.category_name, " +
+            "initiator_id = EXCLUDED.initiator_id, initiator_name = EXCLUDED.initiator_name, lat = EXCLUDED.lat, " +
+            "lon = EXCLUDED.lon, paid = EXCLUDED.paid, participant_limit = EXCLUDED.participant_limit, " +
+            "confirmed_requests = EXCLUDED.confirmed_requests, request_moderation = EXCLUDED.request_moderation, " +
+            "event_date = EXCLUDED.event_date, created_on = EXCLUDED.created_on, " +
+            "published_on = EXCLUDED.published_on, views = EXCLUDED.views";
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final EventSearchIndex eventSearchIndex;
+
+    /**
+     * Пересборка строк витрины событий: опубликованные события записываются, остальные удаляются
+     *
+     * @param eventIds ID событий
+     */
+    public void refresh(Collection<Long> eventIds) {
+        if (eventIds.isEmpty()) {
+            return;
+        }
+        Map<String, Object> parameters = Map.of("ids", eventIds);
+        jdbcTemplate.update("DELETE FROM event_public_view v WHERE v.id IN (:ids) AND NOT EXISTS " +
+                "(SELECT 1 FROM events e WHERE e.id = v.id AND e.state = 'PUBLISHED')", parameters);
+        jdbcTemplate.update(String.format(UPSERT, "e.id IN (:ids)"), parameters);
+    }
+
+    /**
+     * Пересборка строк витрины событий категории после её изменения
+     *
+     * @param categoryId ID категории
+     */
+    public void refreshCategory(long categoryId) {
+        jdbcTemplate.update(String.format(UPSERT, "e.category_id = :categoryId"), Map.of("categoryId", categoryId));
+    }
+
+    /**
+     * Перенос счётчиков подтверждённых заявок и просмотров из events.
+     * Поисковый индекс в памяти сортирует по тем же счётчикам и получает их после фиксации транзакции.
+     *
+     * @param eventIds ID событий
+     */
+    public void refreshCounters(Collection<Long> eventIds) {
+        if (eventIds.isEmpty()) {
+            return;
+        }
+        List<Runnable> updates = jdbcTemplate.query("UPDATE event_public_view v " +
+                        "SET confirmed_requests = e.confirmed_requests, views = e.views " +
+                        "FROM events e WHERE e.id = v.id AND v.id IN (:ids) RETURNING v.id, v.views, v.available",
+                Map.of("ids", eventIds), (rs, rowNum) -> {
+                    long id = rs.getLong("id");
+                    int views = rs.getInt("views");
+                    boolean available = rs.getBoolean("available");
+                    return () -> eventSearchIndex.updateCounters(id, views, available);
+                });
+        if (eventSearchIndex.isEnabled()) {
+            AfterCommit.run(() -> updates.forEach(Runnable::run));
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package ru.practicum.ewm.event.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.querydsl.QuerydslPredicateExecutor;
+import ru.practicum.ewm.event.model.EventPublicView;
+
+public interface EventPublicViewRepository extends JpaRepository<EventPublicView, Long>,
+        QuerydslPredicateExecutor<EventPublicView>, EventPublicViewRepositoryCustom {
+}
@@ -0,0 +1,14 @@
+package ru.practicum.ewm.event.repository;
+
+import com.querydsl.core.types.OrderSpecifier;
+import com.querydsl.core.types.Predicate;
+import ru.practicum.ewm.event.model.EventPublicView;
+
+import java.util.List;
+
+public interface EventPublicViewRepositoryCustom {
+    /**
+     * limit строк витрины по условию начиная с offset в заданном порядке, без запроса общего количества
+     */
+    List<EventPublicView> findSlice(Predicate predicate, long offset, int limit, OrderSpecifier<?>... orders);
+}
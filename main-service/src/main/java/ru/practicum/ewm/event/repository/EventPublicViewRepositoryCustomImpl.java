@@ -0,0 +1,28 @@
+package ru.practicum.ewm.event.repository;
+
+import com.querydsl.core.types.OrderSpecifier;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import ru.practicum.ewm.event.model.EventPublicView;
+import ru.practicum.ewm.event.model.QEventPublicView;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+
+public class EventPublicViewRepositoryCustomImpl implements EventPublicViewRepositoryCustom {
+    private final JPAQueryFactory queryFactory;
+
+    public EventPublicViewRepositoryCustomImpl(EntityManager entityManager) {
+        this.queryFactory = new JPAQueryFactory(entityManager);
+    }
+
+    @Override
+    public List<EventPublicView> findSlice(Predicate predicate, long offset, int limit, OrderSpecifier<?>... orders) {
+        return queryFactory.selectFrom(QEventPublicView.eventPublicView)
+                .where(predicate)
+                .orderBy(orders)
+                .offset(offset)
+                .limit(limit)
+                .fetch();
+    }
+}
@@ -1,20 +1,78 @@
 package ru.practicum.ewm.event.repository;
 
+import com.querydsl.core.types.Predicate;
+import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.querydsl.QuerydslPredicateExecutor;
+import org.springframework.data.repository.query.Param;
 import ru.practicum.ewm.event.model.Event;
 import ru.practicum.ewm.event.model.Status;
 
 import java.util.List;
 import java.util.Optional;
 
-public interface EventRepository extends JpaRepository<Event, Long>, QuerydslPredicateExecutor<Event> {
+/**
+ * Методы, результат которых маппится в EventShortDto/EventFullDto, загружают категорию, инициатора
+ * и место одним запросом через join fetch вместо отдельного select на каждую связь каждого события
+ */
+public interface EventRepository extends JpaRepository<Event, Long>, QuerydslPredicateExecutor<Event>,
+        EventRepositoryCustom {
+    @EntityGraph(attributePaths = {"category", "initiator", "location"})
     List<Event> findAllByInitiatorId(long userId, Pageable pageable);
 
     List<Event> findAllByCategoryId(long id);
 
+    @EntityGraph(attributePaths = {"category", "initiator"})
     List<Event> findAllByIdIn(List<Long> ids);
 
+    @EntityGraph(attributePaths = {"category", "initiator", "location"})
     Optional<Event> findByIdAndState(long id, Status status);
+
+    @EntityGraph(attributePaths = {"category", "initiator", "location"})
+    Optional<Event> findWithDetailsById(long id);
+
+    /**
+     * ID инициатора события без загрузки события
+     *
+     * @param eventId ID события
+     * @return ID инициатора, пусто, если события нет
+     */
+    @Query("select e.initiator.id from Event e where e.id = :eventId")
+    Optional<Long> findInitiatorIdById(@Param("eventId") long eventId);
+
+    /**
+     * Занятие мест в событии одним условным обновлением: параллельные подтверждения не превысят лимит
+     * и не потеряют друг друга, так как строка события блокируется до конца транзакции
+     *
+     * @param eventId ID события
+     * @param count   Количество мест
+     * @return 1, если места заняты, 0, если свободных мест не хватает
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("update Event e set e.confirmedRequests = e.confirmedRequests + :count " +
+            "where e.id = :eventId and (e.participantLimit = 0 or e.confirmedRequests + :count <= e.participantLimit)")
+    int reserveParticipants(@Param("eventId") long eventId, @Param("count") int count);
+
+    /**
+     * Остаток мест события с блокировкой строки до конца транзакции
+     *
+     * @param eventId ID события
+     * @return Количество свободных мест, null - без ограничения
+     */
+    @Query(value = "SELECT CASE WHEN participant_limit = 0 THEN NULL " +
+            "ELSE GREATEST(participant_limit - confirmed_requests, 0) END " +
+            "FROM events WHERE id = :eventId FOR UPDATE", nativeQuery = true)
+    Integer lockRemainingParticipants(@Param("eventId") long eventId);
+
+    @Override
+    @EntityGraph(attributePaths = {"category", "initiator", "location"})
+    Page<Event> findAll(Pageable pageable);
+
+    @Override
+    @EntityGraph(attributePaths = {"category", "initiator", "location"})
+    Page<Event> findAll(Predicate predicate, Pageable pageable);
 }
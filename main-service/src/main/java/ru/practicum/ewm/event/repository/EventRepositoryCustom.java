@@ -0,0 +1,15 @@
+package ru.practicum.ewm.event.repository;
+
+import com.querydsl.core.types.OrderSpecifier;
+import com.querydsl.core.types.Predicate;
+import ru.practicum.ewm.event.model.Event;
+
+import java.util.List;
+
+public interface EventRepositoryCustom {
+    /**
+     * limit событий по условию начиная с offset в заданном порядке вместе с категорией, инициатором и местом,
+     * без запроса общего количества
+     */
+    List<Event> findSlice(Predicate predicate, long offset, int limit, OrderSpecifier<?>... orders);
+}
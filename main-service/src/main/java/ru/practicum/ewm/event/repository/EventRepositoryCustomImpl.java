@@ -0,0 +1,32 @@
+package ru.practicum.ewm.event.repository;
+
+import com.querydsl.core.types.OrderSpecifier;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import ru.practicum.ewm.event.model.Event;
+import ru.practicum.ewm.event.model.QEvent;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+
+public class EventRepositoryCustomImpl implements EventRepositoryCustom {
+    private final JPAQueryFactory queryFactory;
+
+    public EventRepositoryCustomImpl(EntityManager entityManager) {
+        this.queryFactory = new JPAQueryFactory(entityManager);
+    }
+
+    @Override
+    public List<Event> findSlice(Predicate predicate, long offset, int limit, OrderSpecifier<?>... orders) {
+        QEvent event = QEvent.event;
+        return queryFactory.selectFrom(event)
+                .join(event.category).fetchJoin()
+                .join(event.initiator).fetchJoin()
+                .join(event.location).fetchJoin()
+                .where(predicate)
+                .orderBy(orders)
+                .offset(offset)
+                .limit(limit)
+                .fetch();
+    }
+}
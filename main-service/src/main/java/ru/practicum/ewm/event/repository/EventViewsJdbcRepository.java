@@ -0,0 +1,70 @@
+package ru.practicum.ewm.event.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@Repository
+@RequiredArgsConstructor
+public class EventViewsJdbcRepository {
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Следующая страница опубликованных событий по возрастанию ID
+     *
+     * @param afterId ID, после которого начинается страница
+     * @param limit   Размер страницы
+     * @return Дата создания по ID события
+     */
+    public Map<Long, LocalDateTime> findPublishedAfter(long afterId, int limit) {
+        Map<Long, LocalDateTime> events = new LinkedHashMap<>();
+        jdbcTemplate.query("SELECT id, created_on FROM events WHERE state = 'PUBLISHED' AND id > ? " +
+                        "ORDER BY id LIMIT ?",
+                rs -> {
+                    events.put(rs.getLong("id"), rs.getTimestamp("created_on").toLocalDateTime());
+                }, afterId, limit);
+        return events;
+    }
+
+    /**
+     * Опубликованные события среди заданных
+     *
+     * @param ids ID событий
+     * @return Дата создания по ID события
+     */
+    public Map<Long, LocalDateTime> findPublishedIn(Collection<Long> ids) {
+        Map<Long, LocalDateTime> events = new LinkedHashMap<>();
+        jdbcTemplate.query("SELECT id, created_on FROM events WHERE state = 'PUBLISHED' AND id = ANY (?) ORDER BY id",
+                rs -> {
+                    events.put(rs.getLong("id"), rs.getTimestamp("created_on").toLocalDateTime());
+                }, (Object) ids.toArray(new Long[0]));
+        return events;
+    }
+
+    /**
+     * Пакетное обновление просмотров. Строки, в которых число просмотров не изменилось, не перезаписываются.
+     *
+     * @param views Просмотры по ID события
+     * @return ID обновлённых событий
+     */
+    public List<Long> updateViews(Map<Long, Long> views) {
+        List<Long> ids = new ArrayList<>(views.keySet());
+        List<Object[]> args = new ArrayList<>(ids.size());
+        ids.forEach(id -> args.add(new Object[]{views.get(id), id, views.get(id)}));
+        int[] rows = jdbcTemplate.batchUpdate("UPDATE events SET views = ? WHERE id = ? AND views <> ?", args);
+        List<Long> updated = new ArrayList<>();
+        for (int i = 0; i < rows.length; i++) {
+            if (rows[i] != 0) {
+                updated.add(ids.get(i));
+            }
+        }
+        return updated;
+    }
+}
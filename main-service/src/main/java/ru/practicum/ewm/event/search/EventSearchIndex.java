@@ -0,0 +1,287 @@
+package ru.practicum.ewm.event.search;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+import ru.practicum.ewm.event.model.Event;
+import ru.practicum.ewm.event.model.EventCursor;
+import ru.practicum.ewm.event.model.QEvent;
+import ru.practicum.ewm.event.model.Status;
+import ru.practicum.ewm.event.repository.EventRepository;
+import ru.practicum.ewm.utilites.AfterCommit;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Инвертированный индекс опубликованных событий в памяти для ewm.search.engine=memory.
+ * Слова названия, аннотации и описания и фасеты категории, платности и дня события хранятся
+ * как битовые множества ID событий, поиск - их пересечение. Сортировка и разбиение на страницы тоже идут
+ * в индексе по дате, просмотрам и доступности события, поэтому БД нужна только для загрузки найденной страницы.
+ * ID события - номер бита, поэтому события с ID больше Integer.MAX_VALUE в индекс не попадают.
+ */
+@Slf4j
+@Component
+public class EventSearchIndex implements InitializingBean {
+    private static final Pattern SEPARATOR = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final int REBUILD_PAGE_SIZE = 1000;
+    private static final BitSet EMPTY = new BitSet();
+    private static final Comparator<IndexedEvent> BY_EVENT_DATE = Comparator
+            .comparing((IndexedEvent indexed) -> indexed.eventDate)
+            .thenComparingLong(indexed -> indexed.id);
+    private static final Comparator<IndexedEvent> BY_VIEWS = Comparator
+            .comparingInt((IndexedEvent indexed) -> indexed.views).reversed()
+            .thenComparingLong(indexed -> indexed.id);
+    private final EventRepository eventRepository;
+    private final boolean enabled;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, BitSet> postings = new HashMap<>();
+    private final Map<Long, BitSet> categories = new HashMap<>();
+    private final BitSet paid = new BitSet();
+    private final BitSet all = new BitSet();
+    private final NavigableMap<LocalDate, BitSet> days = new TreeMap<>();
+    private final Map<Long, IndexedEvent> events = new HashMap<>();
+
+    public EventSearchIndex(EventRepository eventRepository,
+                            @Value("${ewm.search.engine:postgres}") String engine) {
+        this.eventRepository = eventRepository;
+        this.enabled = "memory".equals(engine);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Построение индекса по опубликованным событиям из БД
+     */
+    @Override
+    public void afterPropertiesSet() {
+        if (!enabled) {
+            return;
+        }
+        PageRequest pageRequest = PageRequest.of(0, REBUILD_PAGE_SIZE, Sort.by("id"));
+        Page<Event> page;
+        do {
+            page = eventRepository.findAll(QEvent.event.state.eq(Status.PUBLISHED), pageRequest);
+            page.forEach(this::update);
+            pageRequest = pageRequest.next();
+        } while (page.hasNext());
+        log.info("Поисковый индекс событий построен: {} событий, {} слов", events.size(), postings.size());
+    }
+
+    /**
+     * Обновление события в индексе после фиксации транзакции изменения:
+     * опубликованное событие переиндексируется, остальные удаляются
+     *
+     * @param event Сохранённое событие
+     */
+    public void update(Event event) {
+        if (!enabled) {
+            return;
+        }
+        if (!fits(event.getId())) {
+            log.warn("Событие {} не помещается в поисковый индекс", event.getId());
+            return;
+        }
+        AfterCommit.run(() -> reindex(event));
+    }
+
+    /**
+     * Обновление просмотров и доступности проиндексированного события
+     *
+     * @param id        ID события
+     * @param views     Просмотры
+     * @param available Есть ли свободные места
+     */
+    public void updateCounters(long id, int views, boolean available) {
+        if (!enabled) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            IndexedEvent indexed = events.get(id);
+            if (indexed != null) {
+                indexed.views = views;
+                indexed.available = available;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Страница ID опубликованных событий, содержащих все слова text и подходящих под фасеты
+     *
+     * @param text          Текст
+     * @param categories    Категории, null - любые
+     * @param paid          Платность, null - любая
+     * @param rangeStart    Начало диапазона дат события
+     * @param rangeEnd      Конец диапазона дат события, null - без ограничения
+     * @param onlyAvailable Только события со свободными местами
+     * @param order         Порядок EventCursor.EVENT_DATE или EventCursor.VIEWS
+     * @param cursor        Позиция, после которой начинается страница, null - с начала
+     * @param offset        Количество пропускаемых событий
+     * @param limit         Размер страницы
+     * @return ID событий страницы в порядке order
+     */
+    public List<Long> search(String text, List<Long> categories, Boolean paid,
+                             LocalDateTime rangeStart, LocalDateTime rangeEnd, boolean onlyAvailable,
+                             String order, EventCursor cursor, long offset, int limit) {
+        Set<String> tokens = tokenize(text);
+        List<IndexedEvent> found = new ArrayList<>();
+        if (tokens.isEmpty()) {
+            return List.of();
+        }
+        lock.readLock().lock();
+        try {
+            BitSet result = (BitSet) all.clone();
+            tokens.forEach(token -> result.and(postings.getOrDefault(token, EMPTY)));
+            if (categories != null) {
+                BitSet inCategories = new BitSet();
+                categories.forEach(category -> inCategories.or(this.categories.getOrDefault(category, EMPTY)));
+                result.and(inCategories);
+            }
+            if (paid != null) {
+                if (paid) {
+                    result.and(this.paid);
+                } else {
+                    result.andNot(this.paid);
+                }
+            }
+            BitSet inRange = new BitSet();
+            NavigableMap<LocalDate, BitSet> rangeDays = rangeEnd == null
+                    ? days.tailMap(rangeStart.toLocalDate(), true)
+                    : days.subMap(rangeStart.toLocalDate(), true, rangeEnd.toLocalDate(), true);
+            rangeDays.values().forEach(inRange::or);
+            result.and(inRange);
+            for (int id = result.nextSetBit(0); id >= 0; id = result.nextSetBit(id + 1)) {
+                IndexedEvent indexed = events.get((long) id);
+                // Крайние дни диапазона проверяются по точному времени события
+                if (indexed.eventDate.isAfter(rangeStart)
+                        && (rangeEnd == null || indexed.eventDate.isBefore(rangeEnd))
+                        && (!onlyAvailable || indexed.available)
+                        && (cursor == null || cursor.isAfter(indexed.eventDate, indexed.views, indexed.id))) {
+                    found.add(indexed.copy());
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return found.stream()
+                .sorted(EventCursor.VIEWS.equals(order) ? BY_VIEWS : BY_EVENT_DATE)
+                .skip(offset)
+                .limit(limit)
+                .map(indexed -> indexed.id)
+                .collect(Collectors.toList());
+    }
+
+    private void reindex(Event event) {
+        lock.writeLock().lock();
+        try {
+            remove(event.getId());
+            if (event.getState() == Status.PUBLISHED) {
+                add(event);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void add(Event event) {
+        int doc = Math.toIntExact(event.getId());
+        Set<String> tokens = tokenize(event.getTitle() + ' ' + event.getAnnotation() + ' ' + event.getDescription());
+        tokens.forEach(token -> postings.computeIfAbsent(token, key -> new BitSet()).set(doc));
+        long category = event.getCategory().getId();
+        categories.computeIfAbsent(category, key -> new BitSet()).set(doc);
+        paid.set(doc, Boolean.TRUE.equals(event.getPaid()));
+        days.computeIfAbsent(event.getEventDate().toLocalDate(), key -> new BitSet()).set(doc);
+        all.set(doc);
+        int limit = event.getParticipantLimit() == null ? 0 : event.getParticipantLimit();
+        int confirmed = event.getConfirmedRequests() == null ? 0 : event.getConfirmedRequests();
+        events.put(event.getId(), new IndexedEvent(event.getId(), tokens, category, event.getEventDate(),
+                event.getViews() == null ? 0 : event.getViews(), limit == 0 || confirmed < limit));
+    }
+
+    private void remove(long id) {
+        IndexedEvent indexed = events.remove(id);
+        if (indexed == null) {
+            return;
+        }
+        int doc = Math.toIntExact(id);
+        indexed.tokens.forEach(token -> clear(postings, token, doc));
+        clear(categories, indexed.category, doc);
+        paid.clear(doc);
+        all.clear(doc);
+        clear(days, indexed.eventDate.toLocalDate(), doc);
+    }
+
+    private static boolean fits(long id) {
+        return id >= 0 && id <= Integer.MAX_VALUE;
+    }
+
+    private static <K> void clear(Map<K, BitSet> index, K key, int doc) {
+        BitSet docs = index.get(key);
+        if (docs != null) {
+            docs.clear(doc);
+            if (docs.isEmpty()) {
+                index.remove(key);
+            }
+        }
+    }
+
+    private static Set<String> tokenize(String text) {
+        Set<String> tokens = new TreeSet<>();
+        for (String token : SEPARATOR.split(text.toLowerCase(Locale.ROOT))) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    private static class IndexedEvent {
+        private final long id;
+        private final Set<String> tokens;
+        private final long category;
+        private final LocalDateTime eventDate;
+        private int views;
+        private boolean available;
+
+        IndexedEvent(long id, Set<String> tokens, long category, LocalDateTime eventDate,
+                     int views, boolean available) {
+            this.id = id;
+            this.tokens = tokens;
+            this.category = category;
+            this.eventDate = eventDate;
+            this.views = views;
+            this.available = available;
+        }
+
+        /**
+         * Снимок счётчиков для сортировки вне блокировки
+         */
+        IndexedEvent copy() {
+            return new IndexedEvent(id, tokens, category, eventDate, views, available);
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package ru.practicum.ewm.event.service;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+import ru.practicum.ewm.event.dto.EventFullDto;
+import ru.practicum.ewm.utilites.AfterCommit;
+import ru.practicum.ewm.utilites.JsonResponseCache;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Кэш ответа GET /events/{id}: полное представление опубликованного события в готовом JSON.
+ * Размер и время жизни записей задаются spring.cache.caffeine.spec, изменения события сбрасывают его запись.
+ * События входят в подборки, поэтому любой сброс также сбрасывает закэшированные ответы GET /compilations.
+ * <p>
+ * Сброс выполняется после фиксации транзакции изменения. Событие, загруженное параллельно со сбросом,
+ * могло быть прочитано до фиксации, поэтому после сохранения в кэш оно удаляется, если сброс успел пройти.
+ */
+@Component
+public class EventDetailsCache {
+    public static final String NAME = "eventDetails";
+    private final Cache cache;
+    private final JsonResponseCache jsonResponseCache;
+    private final AtomicLong evictions = new AtomicLong();
+
+    public EventDetailsCache(CacheManager cacheManager, JsonResponseCache jsonResponseCache) {
+        this.cache = Objects.requireNonNull(cacheManager.getCache(NAME), "Не настроен кэш " + NAME);
+        this.jsonResponseCache = jsonResponseCache;
+    }
+
+    /**
+     * JSON события из кэша или из loader, результат которого кладётся в кэш
+     *
+     * @param eventId ID события
+     * @param loader  Загрузка события при промахе
+     * @return JSON события
+     */
+    public byte[] get(long eventId, Supplier<EventFullDto> loader) {
+        byte[] event = cache.get(eventId, byte[].class);
+        if (event == null) {
+            long version = evictions.get();
+            // Не через Cache.get(key, Callable): он заворачивает EventNotFoundException в ValueRetrievalException
+            event = jsonResponseCache.serialize(loader.get());
+            cache.put(eventId, event);
+            if (evictions.get() != version) {
+                cache.evict(eventId);
+            }
+        }
+        return event;
+    }
+
+    public void evict(long eventId) {
+        evictAll(List.of(eventId));
+    }
+
+    public void evictAll(Collection<Long> eventIds) {
+        List<Long> evicted = List.copyOf(eventIds);
+        AfterCommit.run(() -> {
+            evictions.incrementAndGet();
+            evicted.forEach(cache::evict);
+        });
+        jsonResponseCache.invalidate(JsonResponseCache.COMPILATIONS);
+    }
+
+    public void clear() {
+        AfterCommit.run(() -> {
+            evictions.incrementAndGet();
+            cache.clear();
+        });
+        jsonResponseCache.invalidate(JsonResponseCache.COMPILATIONS);
+    }
+}
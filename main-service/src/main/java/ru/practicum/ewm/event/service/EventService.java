@@ -110,9 +110,9 @@ public interface EventService {
      * Поиск событий админом по критериям
      *
      * @param searchAdmin Критерии
-     * @return События
+     * @return События и курсор следующей страницы, если задан cursor
      */
-    List<EventFullDto> getEventsAdmin(SearchAdmin searchAdmin);
+    EventPage<EventFullDto> getEventsAdmin(SearchAdmin searchAdmin);
 
     /**
      * Изменение события админом
@@ -128,18 +128,24 @@ public interface EventService {
      *
      * @param searchUser Критерии
      * @param request    HTTP-запрос
-     * @return События
+     * @return События и курсор следующей страницы, если задан cursor
      */
-    List<EventShortDto> getEventUser(SearchUser searchUser, HttpServletRequest request);
+    EventPage<EventShortDto> getEventUser(SearchUser searchUser, HttpServletRequest request);
 
     /**
-     * Вывод события по ID
+     * Вывод опубликованного события по ID
      *
      * @param eventId ID события
-     * @param request HTTP-запрос
      * @return Событие
      */
-    EventFullDto getEventId(long eventId, HttpServletRequest request);
+    EventFullDto getEventId(long eventId);
+
+    /**
+     * Учёт просмотра события в сервисе статистики
+     *
+     * @param request HTTP-запрос
+     */
+    void postEventHit(HttpServletRequest request);
 
     /**
      * Вывод комментариев события
@@ -1,14 +1,17 @@
 package ru.practicum.ewm.event.service;
 
+import com.querydsl.core.types.OrderSpecifier;
+import com.querydsl.core.types.Predicate;
 import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.core.types.dsl.Expressions;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import ru.practicum.ewm.StatsClient;
-import ru.practicum.ewm.category.exception.CategoryNotFoundException;
 import ru.practicum.ewm.category.model.Category;
-import ru.practicum.ewm.category.repository.CategoryRepository;
+import ru.practicum.ewm.category.service.CategoryCatalogue;
 import ru.practicum.ewm.comment.dto.CommentDto;
 import ru.practicum.ewm.comment.dto.CommentMapper;
 import ru.practicum.ewm.comment.dto.NewCommentDto;
@@ -16,41 +19,60 @@ import ru.practicum.ewm.comment.exception.CommentNotFoundException;
 import ru.practicum.ewm.comment.exception.UserNotCreatorCommentException;
 import ru.practicum.ewm.comment.model.Comment;
 import ru.practicum.ewm.comment.repository.CommentRepository;
+import ru.practicum.ewm.compilation.service.PinnedCompilationsSnapshot;
 import ru.practicum.ewm.event.dto.*;
 import ru.practicum.ewm.event.exception.*;
 import ru.practicum.ewm.event.model.*;
 import ru.practicum.ewm.event.model.QEvent;
+import ru.practicum.ewm.event.repository.EventPublicViewJdbcRepository;
+import ru.practicum.ewm.event.repository.EventPublicViewRepository;
 import ru.practicum.ewm.event.repository.EventRepository;
+import ru.practicum.ewm.event.search.EventSearchIndex;
 import ru.practicum.ewm.location.model.Location;
 import ru.practicum.ewm.location.repository.LocationRepository;
 import ru.practicum.ewm.request.dto.ParticipationRequestDto;
 import ru.practicum.ewm.request.dto.ParticipationRequestMapper;
-import ru.practicum.ewm.request.model.ParticipationRequest;
+import ru.practicum.ewm.request.exception.RequestNotFound;
+import ru.practicum.ewm.request.model.RequestStatusView;
 import ru.practicum.ewm.request.repository.RequestRepository;
 import ru.practicum.ewm.user.exception.UserNotFoundException;
 import ru.practicum.ewm.user.model.User;
 import ru.practicum.ewm.user.repository.UserRepository;
+import ru.practicum.ewm.user.service.KnownUsers;
 
 import javax.servlet.http.HttpServletRequest;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.BiFunction;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class EventServiceImpl implements EventService {
-    private static final String APP = "ewm-main-service";
+    static final String APP = "ewm-main-service";
+    private static final String RELEVANCE = "RELEVANCE";
+    private static final int IN_CHUNK_SIZE = 1000;
     private final EventRepository eventRepository;
+    private final EventPublicViewRepository eventPublicViewRepository;
+    private final EventPublicViewJdbcRepository eventPublicViewJdbcRepository;
     private final UserRepository userRepository;
-    private final CategoryRepository categoryRepository;
+    private final KnownUsers knownUsers;
+    private final CategoryCatalogue categoryCatalogue;
     private final LocationRepository locationRepository;
     private final RequestRepository requestRepository;
     private final CommentRepository commentRepository;
     private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
 
     private final StatsClient statsClient;
+    private final EventDetailsCache eventDetailsCache;
+    private final PinnedCompilationsSnapshot pinnedCompilationsSnapshot;
+    private final EventSearchIndex eventSearchIndex;
 
     /**
      * Вывод событий определенного пользователя
@@ -62,8 +84,7 @@ public class EventServiceImpl implements EventService {
      */
     @Override
     public List<EventShortDto> getEventsAddedByCurrentUser(long userId, int from, int size) {
-        userRepository.findById(userId).orElseThrow(() ->
-                new UserNotFoundException(userId));
+        knownUsers.require(userId);
         PageRequest pageRequest = PageRequest.of(from > 0 ? from / size : 0, size);
         return EventMapper.toEventShortDto(eventRepository.findAllByInitiatorId(userId, pageRequest));
     }
@@ -79,8 +100,7 @@ public class EventServiceImpl implements EventService {
     public EventFullDto postEvent(long userId, NewEventDto newEventDto) {
         User user = userRepository.findById(userId).orElseThrow(() ->
                 new UserNotFoundException(userId));
-        Category category = categoryRepository.findById(newEventDto.getCategory()).orElseThrow(()
-                -> new CategoryNotFoundException(newEventDto.getCategory()));
+        Category category = categoryCatalogue.getReference(newEventDto.getCategory());
         LocalDateTime eventTime = LocalDateTime.parse(newEventDto.getEventDate(), FORMATTER);
         if (eventTime.isBefore(LocalDateTime.now().plusHours(2))) {
             throw new IncorrectEventDateException();
@@ -100,9 +120,8 @@ public class EventServiceImpl implements EventService {
      */
     @Override
     public EventFullDto getEventByEventIdAddedByCurrentUser(long userId, long eventId) {
-        userRepository.findById(userId).orElseThrow(() ->
-                new UserNotFoundException(userId));
-        return EventMapper.toEventFullDto(eventRepository.findById(eventId).orElseThrow(() ->
+        knownUsers.require(userId);
+        return EventMapper.toEventFullDto(eventRepository.findWithDetailsById(eventId).orElseThrow(() ->
                 new EventNotFoundException(eventId)));
     }
 
@@ -115,9 +134,11 @@ public class EventServiceImpl implements EventService {
      * @return Обновленное событие
      */
     @Override
+    @Transactional
     public EventFullDto patchEventByCurrentUser(long userId, long eventId, UpdateEventUserRequest request) {
-        userRepository.findById(userId).orElseThrow(() -> new UserNotFoundException(userId));
-        Event event = eventRepository.findById(eventId).orElseThrow(() -> new EventNotFoundException(eventId));
+        knownUsers.require(userId);
+        Event event = eventRepository.findWithDetailsById(eventId).orElseThrow(() ->
+                new EventNotFoundException(eventId));
         if (event.getInitiator().getId() != userId) {
             throw new UserNotInitiatorException();
         }
@@ -135,9 +156,7 @@ public class EventServiceImpl implements EventService {
             event.setAnnotation(request.getAnnotation());
         }
         if (request.getCategory() != null) {
-            Category category = categoryRepository.findById(request.getCategory()).orElseThrow(()
-                    -> new CategoryNotFoundException(request.getCategory()));
-            event.setCategory(category);
+            event.setCategory(categoryCatalogue.getReference(request.getCategory()));
         }
         if (request.getDescription() != null) {
             event.setDescription(request.getDescription());
@@ -178,7 +197,11 @@ public class EventServiceImpl implements EventService {
         if (request.getTitle() != null) {
             event.setTitle(request.getTitle());
         }
-        eventRepository.save(event);
+        eventRepository.saveAndFlush(event);
+        eventPublicViewJdbcRepository.refresh(List.of(eventId));
+        eventDetailsCache.evict(eventId);
+        pinnedCompilationsSnapshot.evictEvents(List.of(eventId));
+        eventSearchIndex.update(event);
         return EventMapper.toEventFullDto(event);
     }
 
@@ -191,10 +214,10 @@ public class EventServiceImpl implements EventService {
      */
     @Override
     public List<ParticipationRequestDto> getRequestEventCurrentUser(long userId, long eventId) {
-        userRepository.findById(userId).orElseThrow(() ->
-                new UserNotFoundException(userId));
-        Event event = eventRepository.findById(eventId).orElseThrow(() -> new EventNotFoundException(eventId));
-        if (event.getInitiator().getId() != userId) {
+        knownUsers.require(userId);
+        long initiatorId = eventRepository.findInitiatorIdById(eventId).orElseThrow(() ->
+                new EventNotFoundException(eventId));
+        if (initiatorId != userId) {
             throw new UserNotInitiatorException();
         }
         return ParticipationRequestMapper.toParticipationRequestDto(requestRepository.findAllByEventId(eventId));
@@ -209,11 +232,11 @@ public class EventServiceImpl implements EventService {
      * @return Результат запроса
      */
     @Override
+    @Transactional
     public EventRequestStatusUpdateResult patchStatusRequestCurrentUser(long userId,
                                                                         long eventId,
                                                                         EventRequestStatusUpdateRequest request) {
-        userRepository.findById(userId).orElseThrow(() ->
-                new UserNotFoundException(userId));
+        knownUsers.require(userId);
         Event event = eventRepository.findById(eventId).orElseThrow(() ->
                 new EventNotFoundException(eventId));
         if (event.getParticipantLimit() <= event.getConfirmedRequests()) {
@@ -222,43 +245,80 @@ public class EventServiceImpl implements EventService {
         if (event.getInitiator().getId() != userId) {
             throw new UserNotInitiatorException();
         }
-        List<ParticipationRequest> requests = requestRepository.findAllByIdIn(request.getRequestIds());
-        List<ParticipationRequest> confirmed = new ArrayList<>();
-        List<ParticipationRequest> rejected = new ArrayList<>();
+        Status status;
         try {
-            if (Status.valueOf(request.getStatus()).equals(Status.REJECTED)) {
-                for (ParticipationRequest participationRequest : requests) {
-                    if (!participationRequest.getStatus().equals(Status.PENDING)) {
-                        throw new StatusNotPendingException();
-                    }
-                    rejected.add(participationRequest);
-                    participationRequest.setStatus(Status.REJECTED);
-                }
-            } else if (Status.valueOf(request.getStatus()).equals(Status.CONFIRMED)) {
-                for (ParticipationRequest participationRequest : requests) {
-                    if (!participationRequest.getStatus().equals(Status.PENDING)) {
-                        throw new StatusNotPendingException();
-                    }
-                    if (event.getConfirmedRequests() < event.getParticipantLimit() ||
-                            event.getParticipantLimit() == 0) {
-                        confirmed.add(participationRequest);
-                        participationRequest.setStatus(Status.CONFIRMED);
-                        event.setConfirmedRequests(event.getConfirmedRequests() + 1);
-                    } else {
-                        rejected.add(participationRequest);
-                        participationRequest.setStatus(Status.REJECTED);
-                    }
-                }
-            } else {
-                throw new StatusNotConfirmedOrRejectedException();
-            }
+            status = Status.valueOf(request.getStatus());
         } catch (IllegalArgumentException e) {
             throw new IncorrectStateActionException();
         }
-        eventRepository.save(event);
-        requestRepository.saveAll(requests);
-        return new EventRequestStatusUpdateResult(ParticipationRequestMapper.toParticipationRequestDto(confirmed),
-                ParticipationRequestMapper.toParticipationRequestDto(rejected));
+        if (!status.equals(Status.CONFIRMED) && !status.equals(Status.REJECTED)) {
+            throw new StatusNotConfirmedOrRejectedException();
+        }
+        List<Long> ids = request.getRequestIds().stream()
+                .distinct()
+                .sorted()
+                .collect(Collectors.toList());
+        List<RequestStatusView> requests = new ArrayList<>(ids.size());
+        partition(ids).forEach(chunk -> requests.addAll(requestRepository.findStatusViews(eventId, chunk)));
+        if (requests.size() != ids.size()) {
+            Set<Long> found = requests.stream().map(RequestStatusView::getId).collect(Collectors.toSet());
+            throw new RequestNotFound(ids.stream().filter(id -> !found.contains(id)).findFirst().orElseThrow());
+        }
+        if (requests.stream().anyMatch(participationRequest ->
+                !participationRequest.getStatus().equals(Status.PENDING))) {
+            throw new StatusNotPendingException();
+        }
+        int confirmedCount = 0;
+        boolean full = false;
+        if (status.equals(Status.CONFIRMED)) {
+            // Заявки подтверждаются в порядке ID, пока хватает мест, остальные отклоняются
+            Integer remaining = eventRepository.lockRemainingParticipants(eventId);
+            confirmedCount = remaining == null ? ids.size() : Math.min(ids.size(), remaining);
+            full = remaining != null && confirmedCount == remaining;
+            if (confirmedCount > 0) {
+                eventRepository.reserveParticipants(eventId, confirmedCount);
+            }
+        }
+        updatePendingStatus(eventId, ids.subList(0, confirmedCount), Status.CONFIRMED);
+        updatePendingStatus(eventId, ids.subList(confirmedCount, ids.size()), Status.REJECTED);
+        if (full) {
+            requestRepository.rejectAllPending(eventId);
+        }
+        eventPublicViewJdbcRepository.refreshCounters(List.of(eventId));
+        eventDetailsCache.evict(eventId);
+        pinnedCompilationsSnapshot.evictEvents(List.of(eventId));
+        List<ParticipationRequestDto> confirmed = new ArrayList<>(confirmedCount);
+        List<ParticipationRequestDto> rejected = new ArrayList<>(ids.size() - confirmedCount);
+        for (int i = 0; i < requests.size(); i++) {
+            if (i < confirmedCount) {
+                confirmed.add(ParticipationRequestMapper.toParticipationRequestDto(requests.get(i), eventId,
+                        Status.CONFIRMED));
+            } else {
+                rejected.add(ParticipationRequestMapper.toParticipationRequestDto(requests.get(i), eventId,
+                        Status.REJECTED));
+            }
+        }
+        return new EventRequestStatusUpdateResult(confirmed, rejected);
+    }
+
+    /**
+     * Смена статуса заявок пачками: число параметров одного запроса ограничено
+     */
+    private void updatePendingStatus(long eventId, List<Long> ids, Status status) {
+        for (List<Long> chunk : partition(ids)) {
+            if (requestRepository.updatePendingStatus(eventId, chunk, status) != chunk.size()) {
+                // Статус заявки изменился параллельно после проверки, транзакция откатывается
+                throw new StatusNotPendingException();
+            }
+        }
+    }
+
+    private static List<List<Long>> partition(List<Long> ids) {
+        List<List<Long>> chunks = new ArrayList<>();
+        for (int from = 0; from < ids.size(); from += IN_CHUNK_SIZE) {
+            chunks.add(ids.subList(from, Math.min(ids.size(), from + IN_CHUNK_SIZE)));
+        }
+        return chunks;
     }
 
     /**
@@ -289,11 +349,10 @@ public class EventServiceImpl implements EventService {
      */
     @Override
     public CommentDto patchComment(long userId, long commentId, NewCommentDto newCommentDto) {
-        User user = userRepository.findById(userId).orElseThrow(()
-                -> new UserNotFoundException(userId));
+        knownUsers.require(userId);
         Comment comment = commentRepository.findById(commentId).orElseThrow(()
                 -> new CommentNotFoundException(commentId));
-        if (!user.equals(comment.getAuthor())) {
+        if (comment.getAuthor().getId() != userId) {
             throw new UserNotCreatorCommentException();
         }
         comment.setText(newCommentDto.getText());
@@ -308,11 +367,10 @@ public class EventServiceImpl implements EventService {
      */
     @Override
     public void deleteComment(long userId, long commentId) {
-        User user = userRepository.findById(userId).orElseThrow(()
-                -> new UserNotFoundException(userId));
+        knownUsers.require(userId);
         Comment comment = commentRepository.findById(commentId).orElseThrow(()
                 -> new CommentNotFoundException(commentId));
-        if (!user.equals(comment.getAuthor())) {
+        if (comment.getAuthor().getId() != userId) {
             throw new UserNotCreatorCommentException();
         }
         commentRepository.deleteById(commentId);
@@ -334,10 +392,10 @@ public class EventServiceImpl implements EventService {
      * Поиск событий админом по критериям
      *
      * @param searchAdmin Критерии
-     * @return События
+     * @return События и курсор следующей страницы, если задан cursor
      */
     @Override
-    public List<EventFullDto> getEventsAdmin(SearchAdmin searchAdmin) {
+    public EventPage<EventFullDto> getEventsAdmin(SearchAdmin searchAdmin) {
         List<Long> users = searchAdmin.getUsers();
         List<Status> states = null;
         List<Long> categories = searchAdmin.getCategories();
@@ -369,6 +427,15 @@ public class EventServiceImpl implements EventService {
             rangeEnd = LocalDateTime.parse(searchAdmin.getRangeEnd(), FORMATTER);
             conditions.add(event.eventDate.before(rangeEnd));
         }
+        if (searchAdmin.getCursor() != null) {
+            EventPage<Event> page = findAfterCursor(conditions, searchAdmin.getCursor(), EventCursor.EVENT_DATE,
+                    searchAdmin.getSize(), EventCursor.EVENT_KEYS,
+                    (condition, limit) -> eventRepository.findSlice(condition, 0, limit,
+                            EventCursor.orderBy(EventCursor.EVENT_DATE, EventCursor.EVENT_KEYS)),
+                    last -> EventCursor.of(EventCursor.EVENT_DATE, last.getEventDate(), last.getViews(),
+                            last.getId()));
+            return new EventPage<>(EventMapper.toEventFullDto(page.getEvents()), page.getNextCursor());
+        }
         List<Event> findEvent;
         PageRequest pageRequest = PageRequest.of(searchAdmin.getFrom() / searchAdmin.getSize(),
                 searchAdmin.getSize());
@@ -380,7 +447,7 @@ public class EventServiceImpl implements EventService {
                     .get();
             findEvent = eventRepository.findAll(finalCondition, pageRequest).getContent();
         }
-        return EventMapper.toEventFullDto(findEvent);
+        return new EventPage<>(EventMapper.toEventFullDto(findEvent), null);
     }
 
     /**
@@ -391,8 +458,10 @@ public class EventServiceImpl implements EventService {
      * @return Обновленное событие
      */
     @Override
+    @Transactional
     public EventFullDto patchEventAdmin(long eventId, UpdateEventAdminRequest request) {
-        Event event = eventRepository.findById(eventId).orElseThrow(() -> new EventNotFoundException(eventId));
+        Event event = eventRepository.findWithDetailsById(eventId).orElseThrow(() ->
+                new EventNotFoundException(eventId));
 
         if (request.getAnnotation() != null) {
             event.setAnnotation(request.getAnnotation());
@@ -436,7 +505,13 @@ public class EventServiceImpl implements EventService {
         if (request.getTitle() != null) {
             event.setTitle(request.getTitle());
         }
-        return EventMapper.toEventFullDto(eventRepository.save(event));
+        Event saved = eventRepository.saveAndFlush(event);
+        eventPublicViewJdbcRepository.refresh(List.of(eventId));
+        eventDetailsCache.evict(eventId);
+        pinnedCompilationsSnapshot.evictEvents(List.of(eventId));
+        eventSearchIndex.update(saved);
+        EventFullDto eventFullDto = EventMapper.toEventFullDto(saved);
+        return eventFullDto;
     }
 
     /**
@@ -444,10 +519,10 @@ public class EventServiceImpl implements EventService {
      *
      * @param searchUser Критерии
      * @param request    HTTP-запрос
-     * @return События
+     * @return События и курсор следующей страницы, если задан cursor
      */
     @Override
-    public List<EventShortDto> getEventUser(SearchUser searchUser, HttpServletRequest request) {
+    public EventPage<EventShortDto> getEventUser(SearchUser searchUser, HttpServletRequest request) {
         statsClient.postEndPointHits(APP, request.getRequestURI(), request.getRemoteAddr(), LocalDateTime.now());
         String text = searchUser.getText();
         List<Long> categories = searchUser.getCategories();
@@ -464,14 +539,11 @@ public class EventServiceImpl implements EventService {
         }
         Boolean onlyAvailable = searchUser.getOnlyAvailable();
         String sort = searchUser.getSort();
-        QEvent event = QEvent.event;
+        QEventPublicView event = QEventPublicView.eventPublicView;
         List<BooleanExpression> conditions = new ArrayList<>();
         conditions.add(event.eventDate.after(rangeStart));
-        if (text != null) {
-            conditions.add(event.annotation.likeIgnoreCase(text));
-        }
         if (categories != null) {
-            conditions.add(event.category.id.in(categories));
+            conditions.add(event.categoryId.in(categories));
         }
         if (paid != null) {
             conditions.add(event.paid.eq(paid));
@@ -485,13 +557,39 @@ public class EventServiceImpl implements EventService {
 
         }
         if (onlyAvailable != null) {
-            conditions.add(event.participantLimit.gt(event.confirmedRequests));
+            conditions.add(event.available.isTrue());
+        }
+        if (text != null && eventSearchIndex.isEnabled()) {
+            return findInIndex(searchUser, rangeStart, rangeEnd);
+        }
+        if (text != null) {
+            conditions.add(Expressions.booleanTemplate("fts({0}, {1}, {2}) = true",
+                    event.annotation, event.description, text));
+        }
+        if (sort.equals(RELEVANCE) && text != null) {
+            // Релевантность не годится для курсора, поэтому выдача по ней всегда по from/size
+            OrderSpecifier<Double> rank = Expressions.numberTemplate(Double.class, "fts_rank({0}, {1}, {2})",
+                    event.annotation, event.description, text).desc();
+            long offset = (long) (searchUser.getFrom() / searchUser.getSize()) * searchUser.getSize();
+            List<EventPublicView> events = eventPublicViewRepository.findSlice(conditions.stream()
+                    .reduce(BooleanExpression::and)
+                    .get(), offset, searchUser.getSize(), rank, event.id.asc());
+            return new EventPage<>(EventMapper.publicViewToEventShortDto(events), null);
+        }
+        if (searchUser.getCursor() != null) {
+            String order = sort.equals(EventCursor.EVENT_DATE) ? EventCursor.EVENT_DATE : EventCursor.VIEWS;
+            EventPage<EventPublicView> page = findAfterCursor(conditions, searchUser.getCursor(), order,
+                    searchUser.getSize(), EventCursor.PUBLIC_VIEW_KEYS,
+                    (condition, limit) -> eventPublicViewRepository.findSlice(condition, 0, limit,
+                            EventCursor.orderBy(order, EventCursor.PUBLIC_VIEW_KEYS)),
+                    last -> EventCursor.of(order, last.getEventDate(), last.getViews(), last.getId()));
+            return new EventPage<>(EventMapper.publicViewToEventShortDto(page.getEvents()), page.getNextCursor());
         }
         Sort sortDB;
         if (sort.equals("EVENT_DATE")) {
             sortDB = Sort.by("eventDate").ascending();
         } else {
-            sortDB = Sort.by("views").ascending();
+            sortDB = Sort.by("views").descending().and(Sort.by("id"));
         }
         BooleanExpression finalCondition = conditions.stream()
                 .reduce(BooleanExpression::and)
@@ -499,25 +597,108 @@ public class EventServiceImpl implements EventService {
         PageRequest pageRequest = PageRequest
                 .of(searchUser.getFrom() > 0 ? searchUser.getFrom() / searchUser.getSize() : 0,
                         searchUser.getSize(), sortDB);
-        return EventMapper.toEventShortDto(eventRepository.findAll(finalCondition, pageRequest).getContent());
+        return new EventPage<>(EventMapper.publicViewToEventShortDto(eventPublicViewRepository
+                .findAll(finalCondition, pageRequest).getContent()), null);
     }
 
     /**
-     * Вывод события по ID
+     * Поиск по индексу в памяти: индекс сам сортирует и разбивает выдачу на страницы,
+     * из БД загружается только найденная страница. Релевантность в индексе - порядок по просмотрам.
      *
-     * @param id      ID события
-     * @param request HTTP-запрос
+     * @param searchUser Параметры поиска
+     * @param rangeStart Начало диапазона дат события
+     * @param rangeEnd   Конец диапазона дат события, null - без ограничения
+     * @return События и курсор следующей страницы
+     */
+    private EventPage<EventShortDto> findInIndex(SearchUser searchUser, LocalDateTime rangeStart,
+                                                 LocalDateTime rangeEnd) {
+        String order = searchUser.getSort().equals(EventCursor.EVENT_DATE) ? EventCursor.EVENT_DATE : EventCursor.VIEWS;
+        int size = searchUser.getSize();
+        EventCursor cursor = null;
+        long offset = 0;
+        int limit = size;
+        if (searchUser.getCursor() != null) {
+            cursor = EventCursor.decode(searchUser.getCursor(), order);
+            limit = size + 1;
+        } else {
+            offset = (long) (searchUser.getFrom() / size) * size;
+        }
+        List<Long> ids = eventSearchIndex.search(searchUser.getText(), searchUser.getCategories(),
+                searchUser.getPaid(), rangeStart, rangeEnd, searchUser.getOnlyAvailable() != null,
+                order, cursor, offset, limit);
+        if (ids.isEmpty()) {
+            return new EventPage<>(List.of(), null);
+        }
+        boolean hasNext = ids.size() > size;
+        List<Long> pageIds = hasNext ? ids.subList(0, size) : ids;
+        Map<Long, EventPublicView> found = eventPublicViewRepository.findAllById(pageIds).stream()
+                .collect(Collectors.toMap(EventPublicView::getId, Function.identity()));
+        // Событие могло быть снято с публикации после поиска, такие ID пропускаются
+        List<EventPublicView> events = pageIds.stream()
+                .map(found::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+        String nextCursor = null;
+        if (hasNext && !events.isEmpty()) {
+            EventPublicView last = events.get(events.size() - 1);
+            nextCursor = EventCursor.of(order, last.getEventDate(), last.getViews(), last.getId()).encode();
+        }
+        return new EventPage<>(EventMapper.publicViewToEventShortDto(events), nextCursor);
+    }
+
+    /**
+     * Страница после позиции курсора: запрашивается size + 1 строка,
+     * лишняя строка означает, что следующая страница есть
+     *
+     * @param conditions Условия поиска
+     * @param token      Курсор предыдущей страницы, пустой для первой страницы
+     * @param order      Порядок EventCursor.EVENT_DATE или EventCursor.VIEWS
+     * @param size       Размер страницы
+     * @param keys       Поля ключа в запрашиваемой сущности
+     * @param query      Запрос первых limit строк по условию в порядке order
+     * @param position   Позиция курсора по последней строке страницы
+     * @return Строки и курсор следующей страницы
+     */
+    private <T> EventPage<T> findAfterCursor(List<BooleanExpression> conditions, String token, String order,
+                                             int size, EventCursor.Keys keys,
+                                             BiFunction<Predicate, Integer, List<T>> query,
+                                             Function<T, EventCursor> position) {
+        EventCursor cursor = EventCursor.decode(token, order);
+        if (cursor != null) {
+            conditions.add(cursor.after(keys));
+        }
+        BooleanExpression condition = conditions.stream()
+                .reduce(BooleanExpression::and)
+                .orElse(null);
+        List<T> rows = query.apply(condition, size + 1);
+        String nextCursor = null;
+        if (rows.size() > size) {
+            rows = rows.subList(0, size);
+            nextCursor = position.apply(rows.get(size - 1)).encode();
+        }
+        return new EventPage<>(rows, nextCursor);
+    }
+
+    /**
+     * Вывод опубликованного события по ID
+     *
+     * @param id ID события
      * @return Событие
      */
     @Override
-    public EventFullDto getEventId(long id, HttpServletRequest request) {
-        Event event = eventRepository.findByIdAndState(id, Status.PUBLISHED).orElseThrow(() ->
-                new EventNotFoundException(id));
-        event.setViews(1);
-        statsClient.postEndPointHits(APP, request.getRequestURI(), request.getRemoteAddr(),
-                LocalDateTime.now());
-        eventRepository.save(event);
-        return EventMapper.toEventFullDto(event);
+    public EventFullDto getEventId(long id) {
+        return EventMapper.publicViewToEventFullDto(eventPublicViewRepository.findById(id).orElseThrow(() ->
+                new EventNotFoundException(id)));
+    }
+
+    /**
+     * Учёт просмотра события в сервисе статистики
+     *
+     * @param request HTTP-запрос
+     */
+    @Override
+    public void postEventHit(HttpServletRequest request) {
+        statsClient.postEndPointHits(APP, request.getRequestURI(), request.getRemoteAddr(), LocalDateTime.now());
     }
 
     /**
@@ -528,8 +709,10 @@ public class EventServiceImpl implements EventService {
      */
     @Override
     public List<CommentDto> getComments(long eventId) {
-        eventRepository.findByIdAndState(eventId, Status.PUBLISHED).orElseThrow(() ->
-                new EventNotFoundException(eventId));
+        // В витрине только опубликованные события
+        if (!eventPublicViewRepository.existsById(eventId)) {
+            throw new EventNotFoundException(eventId);
+        }
         return CommentMapper.toCommentDto(commentRepository.findAllByEventIdOrderByCreatedDesc(eventId));
     }
 }
\ No newline at end of file
@@ -0,0 +1,170 @@
+package ru.practicum.ewm.event.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClientException;
+import ru.practicum.ewm.StatsClient;
+import ru.practicum.ewm.ViewStatsDto;
+import ru.practicum.ewm.compilation.service.PinnedCompilationsSnapshot;
+import ru.practicum.ewm.event.repository.EventPublicViewJdbcRepository;
+import ru.practicum.ewm.event.repository.EventViewsJdbcRepository;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Фоновая синхронизация просмотров опубликованных событий с сервером статистики.
+ * Просмотром считается уникальный по IP запрос /events/{id} к ewm-main-service с момента создания события.
+ * Уникальные IP считаются приближённо по скетчам HyperLogLog (approx=true), без count(distinct ip) по всей истории.
+ * <p>
+ * Первый запуск обходит все опубликованные события. Следующие запуски обновляют только события,
+ * URI которых получили просмотры с прошлой успешной синхронизации.
+ */
+@Slf4j
+@Component
+public class EventViewsSynchronizer {
+    private static final String URI_PREFIX = "/events/";
+    /**
+     * Запас на просмотры, которые клиент статистики отправляет с задержкой после времени запроса
+     */
+    private static final Duration LATE_HITS = Duration.ofMinutes(1);
+    private final EventViewsJdbcRepository eventViewsJdbcRepository;
+    private final EventPublicViewJdbcRepository eventPublicViewJdbcRepository;
+    private final StatsClient statsClient;
+    private final EventDetailsCache eventDetailsCache;
+    private final PinnedCompilationsSnapshot pinnedCompilationsSnapshot;
+    private final boolean enabled;
+    private final int batchSize;
+    private LocalDateTime syncedUntil;
+
+    public EventViewsSynchronizer(EventViewsJdbcRepository eventViewsJdbcRepository,
+                                  EventPublicViewJdbcRepository eventPublicViewJdbcRepository,
+                                  StatsClient statsClient,
+                                  EventDetailsCache eventDetailsCache,
+                                  PinnedCompilationsSnapshot pinnedCompilationsSnapshot,
+                                  @Value("${ewm.views.sync.enabled:true}") boolean enabled,
+                                  @Value("${ewm.views.sync.batch-size:100}") int batchSize) {
+        this.eventViewsJdbcRepository = eventViewsJdbcRepository;
+        this.eventPublicViewJdbcRepository = eventPublicViewJdbcRepository;
+        this.statsClient = statsClient;
+        this.eventDetailsCache = eventDetailsCache;
+        this.pinnedCompilationsSnapshot = pinnedCompilationsSnapshot;
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Синхронизация пачками: одна пачка - один запрос к серверу статистики и одно пакетное обновление events.views.
+     * После ошибки следующий запуск повторяет интервал с прошлой успешной синхронизации.
+     */
+    @Scheduled(initialDelayString = "${ewm.views.sync.interval-ms:30000}",
+            fixedDelayString = "${ewm.views.sync.interval-ms:30000}")
+    public void synchronize() {
+        if (!enabled) {
+            return;
+        }
+        LocalDateTime end = LocalDateTime.now().plusSeconds(1);
+        try {
+            int updated = syncedUntil == null ? synchronizeAll(end) : synchronizeViewed(syncedUntil.minus(LATE_HITS), end);
+            syncedUntil = end;
+            if (updated > 0) {
+                log.info("Синхронизация просмотров: обновлено {} событий", updated);
+            }
+        } catch (RestClientException e) {
+            log.warn("Синхронизация просмотров прервана: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Обход всех опубликованных событий по возрастанию ID
+     */
+    private int synchronizeAll(LocalDateTime end) {
+        long afterId = 0;
+        int updated = 0;
+        Map<Long, LocalDateTime> events;
+        do {
+            events = eventViewsJdbcRepository.findPublishedAfter(afterId, batchSize);
+            if (events.isEmpty()) {
+                break;
+            }
+            updated += synchronizeBatch(events, end);
+            afterId = Collections.max(events.keySet());
+        } while (events.size() == batchSize);
+        return updated;
+    }
+
+    /**
+     * Обновление событий, URI которых получили просмотры в интервале. Сами URI берутся из неуникальной
+     * статистики за интервал, которая считается по агрегатам сервера статистики.
+     */
+    private int synchronizeViewed(LocalDateTime from, LocalDateTime end) {
+        Set<Long> viewed = new TreeSet<>();
+        for (ViewStatsDto stats : statsClient.getViewStats(from, end, null, false, false)) {
+            if (EventServiceImpl.APP.equals(stats.getApp())) {
+                parseEventId(stats.getUri()).ifPresent(viewed::add);
+            }
+        }
+        List<Long> ids = new ArrayList<>(viewed);
+        int updated = 0;
+        for (int i = 0; i < ids.size(); i += batchSize) {
+            Map<Long, LocalDateTime> events = eventViewsJdbcRepository
+                    .findPublishedIn(ids.subList(i, Math.min(i + batchSize, ids.size())));
+            if (!events.isEmpty()) {
+                updated += synchronizeBatch(events, end);
+            }
+        }
+        return updated;
+    }
+
+    private int synchronizeBatch(Map<Long, LocalDateTime> events, LocalDateTime end) {
+        List<Long> updatedIds = eventViewsJdbcRepository.updateViews(fetchViews(events, end));
+        eventPublicViewJdbcRepository.refreshCounters(updatedIds);
+        eventDetailsCache.evictAll(updatedIds);
+        pinnedCompilationsSnapshot.evictEvents(updatedIds);
+        return updatedIds.size();
+    }
+
+    private Map<Long, Long> fetchViews(Map<Long, LocalDateTime> events, LocalDateTime end) {
+        List<String> uris = new ArrayList<>(events.size());
+        Map<Long, Long> views = new HashMap<>();
+        events.keySet().forEach(id -> {
+            uris.add(URI_PREFIX + id);
+            views.put(id, 0L);
+        });
+        LocalDateTime start = Collections.min(events.values());
+        for (ViewStatsDto stats : statsClient.getViewStats(start, end, uris, true, true)) {
+            // Просмотры других приложений не учитываются: сумма уникальных по приложениям считала бы IP дважды
+            if (!EventServiceImpl.APP.equals(stats.getApp())) {
+                continue;
+            }
+            Optional<Long> id = parseEventId(stats.getUri());
+            if (id.isPresent()) {
+                views.computeIfPresent(id.get(), (eventId, count) -> stats.getHits());
+            } else {
+                log.warn("Неожиданный URI в статистике: {}", stats.getUri());
+            }
+        }
+        return views;
+    }
+
+    private static Optional<Long> parseEventId(String uri) {
+        if (!uri.startsWith(URI_PREFIX)) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(Long.parseLong(uri.substring(URI_PREFIX.length())));
+        } catch (NumberFormatException e) {
+            return Optional.empty();
+        }
+    }
+}
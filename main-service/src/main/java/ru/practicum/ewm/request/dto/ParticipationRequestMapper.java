@@ -1,6 +1,8 @@
 package ru.practicum.ewm.request.dto;
 
+import ru.practicum.ewm.event.model.Status;
 import ru.practicum.ewm.request.model.ParticipationRequest;
+import ru.practicum.ewm.request.model.RequestStatusView;
 
 import java.time.format.DateTimeFormatter;
 import java.util.List;
@@ -19,6 +21,17 @@ public class ParticipationRequestMapper {
                 .build();
     }
 
+    public static ParticipationRequestDto toParticipationRequestDto(RequestStatusView request, long eventId,
+                                                                    Status status) {
+        return ParticipationRequestDto.builder()
+                .id(request.getId())
+                .event(eventId)
+                .requester(request.getRequesterId())
+                .status(status)
+                .created(request.getCreated().format(FORMATTER))
+                .build();
+    }
+
     public static List<ParticipationRequestDto> toParticipationRequestDto(List<ParticipationRequest>
                                                                                   participationRequests) {
         return participationRequests.stream()
@@ -0,0 +1,7 @@
+package ru.practicum.ewm.request.exception;
+
+public class RequestsUnavailableException extends RuntimeException {
+    public RequestsUnavailableException() {
+        super("Подтверждение заявок временно недоступно, повторите запрос");
+    }
+}
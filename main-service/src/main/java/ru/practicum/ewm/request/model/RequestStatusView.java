@@ -0,0 +1,18 @@
+package ru.practicum.ewm.request.model;
+
+import ru.practicum.ewm.event.model.Status;
+
+import java.time.LocalDateTime;
+
+/**
+ * Поля заявки, нужные для смены статуса и ответа, без загрузки сущностей
+ */
+public interface RequestStatusView {
+    Long getId();
+
+    Long getRequesterId();
+
+    Status getStatus();
+
+    LocalDateTime getCreated();
+}
@@ -1,8 +1,14 @@
 package ru.practicum.ewm.request.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import ru.practicum.ewm.event.model.Status;
 import ru.practicum.ewm.request.model.ParticipationRequest;
+import ru.practicum.ewm.request.model.RequestStatusView;
 
+import java.util.Collection;
 import java.util.List;
 
 public interface RequestRepository extends JpaRepository<ParticipationRequest, Long> {
@@ -13,4 +19,27 @@ public interface RequestRepository extends JpaRepository<ParticipationRequest, L
     List<ParticipationRequest> findAllByEventId(long id);
 
     List<ParticipationRequest> findAllByIdIn(List<Long> ids);
+
+    @Query("select r.id as id, r.requester.id as requesterId, r.status as status, r.created as created " +
+            "from ParticipationRequest r where r.event.id = :eventId and r.id in :ids order by r.id")
+    List<RequestStatusView> findStatusViews(@Param("eventId") long eventId, @Param("ids") Collection<Long> ids);
+
+    /**
+     * Смена статуса ожидающих заявок события одним запросом
+     *
+     * @return Количество изменённых заявок
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update ParticipationRequest r set r.status = :status " +
+            "where r.event.id = :eventId and r.id in :ids and r.status = ru.practicum.ewm.event.model.Status.PENDING")
+    int updatePendingStatus(@Param("eventId") long eventId, @Param("ids") Collection<Long> ids,
+                            @Param("status") Status status);
+
+    /**
+     * Отклонение всех оставшихся ожидающих заявок события, когда места закончились
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update ParticipationRequest r set r.status = ru.practicum.ewm.event.model.Status.REJECTED " +
+            "where r.event.id = :eventId and r.status = ru.practicum.ewm.event.model.Status.PENDING")
+    int rejectAllPending(@Param("eventId") long eventId);
 }
@@ -0,0 +1,342 @@
+package ru.practicum.ewm.request.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.ewm.compilation.service.PinnedCompilationsSnapshot;
+import ru.practicum.ewm.event.model.Event;
+import ru.practicum.ewm.event.repository.EventPublicViewJdbcRepository;
+import ru.practicum.ewm.event.repository.EventRepository;
+import ru.practicum.ewm.event.service.EventDetailsCache;
+import ru.practicum.ewm.request.exception.NoEmptyPlaceEventException;
+import ru.practicum.ewm.request.exception.RequestsUnavailableException;
+import ru.practicum.ewm.request.exception.UserSentRequestCurrentEventException;
+import ru.practicum.ewm.request.model.ParticipationRequest;
+import ru.practicum.ewm.request.repository.RequestRepository;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.stream.Collectors;
+
+/**
+ * Режим массовой записи на популярные события (ewm.requests.hot-mode.enabled) для заявок, подтверждаемых
+ * без пре-модерации. Остаток мест события с лимитом держится в памяти в нескольких счётчиках,
+ * заявка занимает место без блокировок.
+ * Подтверждённые заявки сохраняются группами: один поток забирает накопившиеся заявки, занимает места
+ * в БД одним обновлением на событие и сохраняет заявки через saveAll, поэтому строка события блокируется
+ * раз на группу, а не на каждую заявку. Ответ клиенту отдаётся после коммита группы.
+ * <p>
+ * Источник истины - БД: счётчики в памяти только отсеивают заявки на заполненные события.
+ * Они отстают от БД, когда инициатор подтверждает заявки вручную или заявка группы не сохраняется,
+ * поэтому при расхождении с БД или смене лимита счётчик события перечитывается, в том числе после перезапуска.
+ * <p>
+ * Заявка, которую ни одна группа не забрала за confirm-timeout-ms, отзывается из очереди, как и заявки,
+ * оставшиеся в очереди при остановке: клиент получает RequestsUnavailableException и может повторить запрос.
+ */
+@Slf4j
+@Component
+public class HotEventReservations implements DisposableBean {
+    private static final int STRIPES = 8;
+    private final EventRepository eventRepository;
+    private final EventPublicViewJdbcRepository eventPublicViewJdbcRepository;
+    private final RequestRepository requestRepository;
+    private final EventDetailsCache eventDetailsCache;
+    private final PinnedCompilationsSnapshot pinnedCompilationsSnapshot;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final int batchSize;
+    private final long confirmTimeoutMs;
+    private final Map<Long, EventSlots> slots = new ConcurrentHashMap<>();
+    private final BlockingQueue<PendingRequest> queue = new LinkedBlockingQueue<>();
+    private final ExecutorService executor;
+    private volatile boolean stopping;
+
+    public HotEventReservations(EventRepository eventRepository,
+                                EventPublicViewJdbcRepository eventPublicViewJdbcRepository,
+                                RequestRepository requestRepository,
+                                EventDetailsCache eventDetailsCache,
+                                PinnedCompilationsSnapshot pinnedCompilationsSnapshot,
+                                TransactionTemplate transactionTemplate,
+                                @Value("${ewm.requests.hot-mode.enabled:false}") boolean enabled,
+                                @Value("${ewm.requests.hot-mode.batch-size:200}") int batchSize,
+                                @Value("${ewm.requests.hot-mode.confirm-timeout-ms:10000}") long confirmTimeoutMs) {
+        this.eventRepository = eventRepository;
+        this.eventPublicViewJdbcRepository = eventPublicViewJdbcRepository;
+        this.requestRepository = requestRepository;
+        this.eventDetailsCache = eventDetailsCache;
+        this.pinnedCompilationsSnapshot = pinnedCompilationsSnapshot;
+        this.transactionTemplate = transactionTemplate;
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.confirmTimeoutMs = confirmTimeoutMs;
+        if (enabled) {
+            executor = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "hot-event-reservations");
+                thread.setDaemon(true);
+                return thread;
+            });
+            executor.execute(this::run);
+        } else {
+            executor = null;
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Подтверждение заявки: занятие места в памяти и ожидание сохранения группы, в которую попала заявка
+     *
+     * @param event   Событие
+     * @param request Подтверждённая заявка
+     * @return Сохранённая заявка
+     */
+    public ParticipationRequest confirm(Event event, ParticipationRequest request) {
+        if (stopping) {
+            throw new RequestsUnavailableException();
+        }
+        if (event.getParticipantLimit() != 0 && !claim(event)) {
+            throw new NoEmptyPlaceEventException();
+        }
+        PendingRequest pending = new PendingRequest(event.getId(), request);
+        queue.add(pending);
+        if (stopping && pending.withdraw()) {
+            // Остановка началась после проверки, и очередь могла быть уже разобрана
+            throw new RequestsUnavailableException();
+        }
+        try {
+            return pending.result.get(confirmTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            if (pending.withdraw()) {
+                log.warn("Заявка на событие {} не сохранена за {} мс и отозвана", pending.eventId, confirmTimeoutMs);
+                throw new RequestsUnavailableException();
+            }
+            // Группа уже сохраняет заявку: ответ ждёт её коммита не дольше ещё одного таймаута
+            return awaitTaken(pending);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RequestsUnavailableException();
+        } catch (ExecutionException e) {
+            throw unwrap(e);
+        }
+    }
+
+    private ParticipationRequest awaitTaken(PendingRequest pending) {
+        try {
+            return pending.result.get(confirmTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            log.warn("Группа с заявкой на событие {} не сохранена за {} мс", pending.eventId, 2 * confirmTimeoutMs);
+            throw new RequestsUnavailableException();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RequestsUnavailableException();
+        } catch (ExecutionException e) {
+            throw unwrap(e);
+        }
+    }
+
+    private static RuntimeException unwrap(ExecutionException e) {
+        return e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : new RuntimeException(e);
+    }
+
+    /**
+     * Занятие места события с лимитом в памяти
+     *
+     * @param event Событие, только что прочитанное из БД
+     * @return Место занято
+     */
+    private boolean claim(Event event) {
+        int limit = event.getParticipantLimit();
+        EventSlots eventSlots = slots.compute(event.getId(), (id, current) -> current != null
+                && current.participantLimit == limit ? current : new EventSlots(limit, event.getConfirmedRequests()));
+        if (eventSlots.tryClaim()) {
+            return true;
+        }
+        if (event.getConfirmedRequests() >= limit) {
+            return false;
+        }
+        // В БД места есть, а счётчик исчерпан заявками, которые не сохранились: счётчик перечитывается
+        EventSlots reloaded = new EventSlots(limit, event.getConfirmedRequests());
+        slots.replace(event.getId(), eventSlots, reloaded);
+        return reloaded.tryClaim();
+    }
+
+    @Override
+    public void destroy() {
+        stopping = true;
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    private void run() {
+        List<PendingRequest> batch = new ArrayList<>(batchSize);
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                batch.add(queue.take());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            // Пока сохраняется одна группа, следующая накапливается в очереди
+            queue.drainTo(batch, batchSize - 1);
+            batch.removeIf(pending -> !pending.take());
+            if (!batch.isEmpty()) {
+                flush(batch);
+            }
+            batch.clear();
+        }
+        List<PendingRequest> rest = new ArrayList<>();
+        queue.drainTo(rest);
+        rest.forEach(pending -> pending.result.completeExceptionally(new RequestsUnavailableException()));
+    }
+
+    private void flush(List<PendingRequest> batch) {
+        try {
+            complete(transactionTemplate.execute(status -> save(batch)));
+        } catch (RuntimeException e) {
+            log.warn("Группа из {} заявок не сохранена, сохранение по одной: {}", batch.size(), e.getMessage());
+            for (PendingRequest pending : batch) {
+                // ID мог быть выдан в откатившейся транзакции
+                pending.request.setId(null);
+                try {
+                    complete(transactionTemplate.execute(status -> save(List.of(pending))));
+                } catch (RuntimeException single) {
+                    slots.remove(pending.eventId);
+                    pending.result.completeExceptionally(single);
+                }
+            }
+        }
+    }
+
+    /**
+     * Сохранение группы в текущей транзакции
+     *
+     * @return Результаты заявок, которые отдаются ожидающим потокам только после коммита
+     */
+    private Map<PendingRequest, Object> save(List<PendingRequest> batch) {
+        Map<PendingRequest, Object> results = new LinkedHashMap<>();
+        Map<Long, List<PendingRequest>> byEvent = new LinkedHashMap<>();
+        Set<String> requesters = new HashSet<>();
+        for (PendingRequest pending : batch) {
+            if (requesters.add(pending.eventId + ":" + pending.request.getRequester().getId())) {
+                byEvent.computeIfAbsent(pending.eventId, id -> new ArrayList<>()).add(pending);
+            } else {
+                results.put(pending, new UserSentRequestCurrentEventException());
+            }
+        }
+        List<PendingRequest> accepted = new ArrayList<>(batch.size());
+        byEvent.forEach((eventId, requests) -> {
+            if (eventRepository.reserveParticipants(eventId, requests.size()) == 1) {
+                accepted.addAll(requests);
+                return;
+            }
+            // В БД мест меньше, чем думал счётчик в памяти: места раздаются по одному, счётчик перечитывается
+            slots.remove(eventId);
+            for (PendingRequest pending : requests) {
+                if (eventRepository.reserveParticipants(eventId, 1) == 1) {
+                    accepted.add(pending);
+                } else {
+                    results.put(pending, new NoEmptyPlaceEventException());
+                }
+            }
+        });
+        List<ParticipationRequest> saved = requestRepository.saveAll(accepted.stream()
+                .map(pending -> pending.request)
+                .collect(Collectors.toList()));
+        requestRepository.flush();
+        eventPublicViewJdbcRepository.refreshCounters(byEvent.keySet());
+        for (int i = 0; i < accepted.size(); i++) {
+            results.put(accepted.get(i), saved.get(i));
+        }
+        return results;
+    }
+
+    private void complete(Map<PendingRequest, Object> results) {
+        Set<Long> events = new HashSet<>();
+        results.forEach((pending, result) -> {
+            if (result instanceof ParticipationRequest) {
+                events.add(pending.eventId);
+                pending.result.complete((ParticipationRequest) result);
+            } else {
+                pending.result.completeExceptionally((RuntimeException) result);
+            }
+        });
+        events.forEach(eventDetailsCache::evict);
+        pinnedCompilationsSnapshot.evictEvents(events);
+    }
+
+    /**
+     * Остаток мест события, разложенный по нескольким счётчикам, чтобы параллельные заявки
+     * не конкурировали за одну ячейку
+     */
+    private static class EventSlots {
+        private final int participantLimit;
+        private final AtomicIntegerArray stripes = new AtomicIntegerArray(STRIPES);
+
+        EventSlots(int participantLimit, int confirmedRequests) {
+            this.participantLimit = participantLimit;
+            int remaining = Math.max(participantLimit - confirmedRequests, 0);
+            for (int i = 0; i < STRIPES; i++) {
+                stripes.set(i, remaining / STRIPES + (i < remaining % STRIPES ? 1 : 0));
+            }
+        }
+
+        boolean tryClaim() {
+            int start = ThreadLocalRandom.current().nextInt(STRIPES);
+            for (int i = 0; i < STRIPES; i++) {
+                int stripe = (start + i) % STRIPES;
+                int left = stripes.get(stripe);
+                while (left > 0) {
+                    if (stripes.compareAndSet(stripe, left, left - 1)) {
+                        return true;
+                    }
+                    left = stripes.get(stripe);
+                }
+            }
+            return false;
+        }
+    }
+
+    private static class PendingRequest {
+        private final long eventId;
+        private final ParticipationRequest request;
+        private final CompletableFuture<ParticipationRequest> result = new CompletableFuture<>();
+        /**
+         * Заявку забрала группа или отозвал ожидающий поток, второй из них уступает
+         */
+        private final AtomicBoolean claimed = new AtomicBoolean();
+
+        PendingRequest(long eventId, ParticipationRequest request) {
+            this.eventId = eventId;
+            this.request = request;
+        }
+
+        boolean take() {
+            return claimed.compareAndSet(false, true);
+        }
+
+        boolean withdraw() {
+            return claimed.compareAndSet(false, true);
+        }
+    }
+}
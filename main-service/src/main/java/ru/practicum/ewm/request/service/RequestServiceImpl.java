@@ -2,18 +2,21 @@ package ru.practicum.ewm.request.service;
 
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.ewm.compilation.service.PinnedCompilationsSnapshot;
 import ru.practicum.ewm.event.exception.EventNotFoundException;
 import ru.practicum.ewm.event.model.Event;
 import ru.practicum.ewm.event.model.Status;
+import ru.practicum.ewm.event.repository.EventPublicViewJdbcRepository;
 import ru.practicum.ewm.event.repository.EventRepository;
+import ru.practicum.ewm.event.service.EventDetailsCache;
 import ru.practicum.ewm.request.dto.ParticipationRequestDto;
 import ru.practicum.ewm.request.dto.ParticipationRequestMapper;
 import ru.practicum.ewm.request.exception.*;
 import ru.practicum.ewm.request.model.ParticipationRequest;
 import ru.practicum.ewm.request.repository.RequestRepository;
-import ru.practicum.ewm.user.exception.UserNotFoundException;
 import ru.practicum.ewm.user.model.User;
-import ru.practicum.ewm.user.repository.UserRepository;
+import ru.practicum.ewm.user.service.KnownUsers;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -22,8 +25,13 @@ import java.util.List;
 @RequiredArgsConstructor
 public class RequestServiceImpl implements RequestService {
     private final RequestRepository requestRepository;
-    private final UserRepository userRepository;
+    private final KnownUsers knownUsers;
     private final EventRepository eventRepository;
+    private final EventPublicViewJdbcRepository eventPublicViewJdbcRepository;
+    private final EventDetailsCache eventDetailsCache;
+    private final PinnedCompilationsSnapshot pinnedCompilationsSnapshot;
+    private final HotEventReservations hotEventReservations;
+    private final TransactionTemplate transactionTemplate;
 
     /**
      * Вывод запросов пользователя
@@ -33,8 +41,7 @@ public class RequestServiceImpl implements RequestService {
      */
     @Override
     public List<ParticipationRequestDto> getRequestCurrentUser(long userId) {
-        userRepository.findById(userId).orElseThrow(() ->
-                new UserNotFoundException(userId));
+        knownUsers.require(userId);
         return ParticipationRequestMapper.toParticipationRequestDto(requestRepository.findAllByRequesterId(userId));
     }
 
@@ -47,14 +54,13 @@ public class RequestServiceImpl implements RequestService {
      */
     @Override
     public ParticipationRequestDto postRequest(long userId, long eventId) {
-        User user = userRepository.findById(userId).orElseThrow(() ->
-                new UserNotFoundException(userId));
+        User user = knownUsers.reference(userId);
         Event event = eventRepository.findById(eventId).orElseThrow(() ->
                 new EventNotFoundException(eventId));
         if (requestRepository.findFirstByRequesterIdAndEventId(userId, eventId) != null) {
             throw new UserSentRequestCurrentEventException();
         }
-        if (event.getInitiator().equals(user)) {
+        if (event.getInitiator().getId() == userId) {
             throw new UserInitiatorEventException();
         }
         if (!event.getState().equals(Status.PUBLISHED)) {
@@ -63,16 +69,33 @@ public class RequestServiceImpl implements RequestService {
         if (event.getConfirmedRequests() >= event.getParticipantLimit() && event.getParticipantLimit() != 0) {
             throw new NoEmptyPlaceEventException();
         }
-        if (!event.getRequestModeration()) {
-            event.setConfirmedRequests(event.getConfirmedRequests() + 1);
+        // Без лимита и без пре-модерации заявка подтверждается сразу, место занимается условным обновлением
+        Status status = event.getParticipantLimit() == 0 || Boolean.FALSE.equals(event.getRequestModeration())
+                ? Status.CONFIRMED : Status.PENDING;
+        ParticipationRequest participationRequest = ParticipationRequest.builder()
+                .event(event)
+                .requester(user)
+                .status(status)
+                .created(LocalDateTime.now())
+                .build();
+        if (!status.equals(Status.CONFIRMED)) {
+            participationRequest = requestRepository.save(participationRequest);
+        } else if (hotEventReservations.isEnabled()) {
+            participationRequest = hotEventReservations.confirm(event, participationRequest);
+        } else {
+            ParticipationRequest confirmed = participationRequest;
+            participationRequest = transactionTemplate.execute(transaction -> {
+                if (eventRepository.reserveParticipants(eventId, 1) == 0) {
+                    throw new NoEmptyPlaceEventException();
+                }
+                ParticipationRequest saved = requestRepository.save(confirmed);
+                eventPublicViewJdbcRepository.refreshCounters(List.of(eventId));
+                return saved;
+            });
+            eventDetailsCache.evict(eventId);
+            pinnedCompilationsSnapshot.evictEvents(List.of(eventId));
         }
-        return ParticipationRequestMapper.toParticipationRequestDto(requestRepository
-                .save(ParticipationRequest.builder()
-                        .event(event)
-                        .requester(user)
-                        .status(event.getParticipantLimit() == 0 ? Status.CONFIRMED : Status.PENDING)
-                        .created(LocalDateTime.now())
-                        .build()));
+        return ParticipationRequestMapper.toParticipationRequestDto(participationRequest);
     }
 
     /**
@@ -84,8 +107,7 @@ public class RequestServiceImpl implements RequestService {
      */
     @Override
     public ParticipationRequestDto cancelRequest(long userId, long requestId) {
-        userRepository.findById(userId).orElseThrow(() ->
-                new UserNotFoundException(userId));
+        knownUsers.require(userId);
         ParticipationRequest participationRequest = requestRepository.findById(requestId).orElseThrow(() ->
                 new RequestNotFound(requestId));
         participationRequest.setStatus(Status.CANCELED);
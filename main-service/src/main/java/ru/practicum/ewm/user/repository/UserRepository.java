@@ -1,14 +1,38 @@
 package ru.practicum.ewm.user.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import ru.practicum.ewm.user.model.User;
 
+import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
+import javax.persistence.QueryHint;
 import java.util.List;
 
 public interface UserRepository extends JpaRepository<User, Long> {
     User findFirstByName(String name);
 
+    @QueryHints(@QueryHint(name = "org.hibernate.cacheable", value = "true"))
     List<User> findAllByIdIn(List<Long> ids, Pageable pageable);
+
+    @Override
+    @QueryHints(@QueryHint(name = "org.hibernate.cacheable", value = "true"))
+    Page<User> findAll(Pageable pageable);
+
+    @Query("select u.id from User u")
+    List<Long> findAllIds();
+
+    /**
+     * Удаление без предварительной загрузки пользователя, которую выполняет deleteById
+     *
+     * @param userId ID пользователя
+     * @return 1, если пользователь удален, 0, если его нет
+     */
+    @Modifying
+    @Query("delete from User u where u.id = :userId")
+    int deleteUserById(@Param("userId") long userId);
 }
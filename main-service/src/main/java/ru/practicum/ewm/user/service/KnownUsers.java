@@ -0,0 +1,58 @@
+package ru.practicum.ewm.user.service;
+
+import org.springframework.stereotype.Component;
+import ru.practicum.ewm.user.exception.UserNotFoundException;
+import ru.practicum.ewm.user.model.User;
+import ru.practicum.ewm.user.repository.UserRepository;
+import ru.practicum.ewm.utilites.AfterCommit;
+import ru.practicum.ewm.utilites.KnownIds;
+
+/**
+ * Проверка существования пользователя по множеству известных ID вместо загрузки строки пользователя
+ * в начале каждого метода закрытого API
+ */
+@Component
+public class KnownUsers {
+    private final UserRepository userRepository;
+    private final KnownIds ids;
+
+    public KnownUsers(UserRepository userRepository) {
+        this.userRepository = userRepository;
+        this.ids = new KnownIds(userRepository::findAllIds, userRepository::existsById);
+    }
+
+    public void require(long userId) {
+        if (!ids.contains(userId)) {
+            throw new UserNotFoundException(userId);
+        }
+    }
+
+    /**
+     * Пользователь для связи с другой сущностью: прокси Hibernate без запроса к БД
+     *
+     * @param userId ID пользователя
+     * @return Пользователь
+     */
+    public User reference(long userId) {
+        require(userId);
+        return userRepository.getReferenceById(userId);
+    }
+
+    /**
+     * Учёт созданного пользователя после фиксации транзакции
+     *
+     * @param userId ID пользователя
+     */
+    public void added(long userId) {
+        AfterCommit.run(() -> ids.add(userId));
+    }
+
+    /**
+     * Учёт удалённого пользователя после фиксации транзакции: при откате удаления пользователь остаётся известным
+     *
+     * @param userId ID пользователя
+     */
+    public void removed(long userId) {
+        AfterCommit.run(() -> ids.remove(userId));
+    }
+}
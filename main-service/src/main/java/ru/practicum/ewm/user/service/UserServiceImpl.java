@@ -3,11 +3,13 @@ package ru.practicum.ewm.user.service;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import ru.practicum.ewm.user.dto.NewUserRequest;
 import ru.practicum.ewm.user.dto.UserDto;
 import ru.practicum.ewm.user.dto.UserMapper;
 import ru.practicum.ewm.user.exception.DuplicateUserNameException;
 import ru.practicum.ewm.user.exception.UserNotFoundException;
+import ru.practicum.ewm.user.model.User;
 import ru.practicum.ewm.user.repository.UserRepository;
 
 import java.util.List;
@@ -16,6 +18,7 @@ import java.util.List;
 @RequiredArgsConstructor
 public class UserServiceImpl implements UserService {
     private final UserRepository userRepository;
+    private final KnownUsers knownUsers;
 
     /**
      * Вывод пользователей
@@ -46,7 +49,9 @@ public class UserServiceImpl implements UserService {
         if (userRepository.findFirstByName(newUserRequest.getName()) != null) {
             throw new DuplicateUserNameException();
         }
-        return UserMapper.toUserDto(userRepository.save(UserMapper.newUserRequestToUser(newUserRequest)));
+        User user = userRepository.save(UserMapper.newUserRequestToUser(newUserRequest));
+        knownUsers.added(user.getId());
+        return UserMapper.toUserDto(user);
     }
 
     /**
@@ -55,9 +60,11 @@ public class UserServiceImpl implements UserService {
      * @param userId ID пользователя
      */
     @Override
+    @Transactional
     public void deleteUser(long userId) {
-        userRepository.findById(userId).orElseThrow(() ->
-                new UserNotFoundException(userId));
-        userRepository.deleteById(userId);
+        if (userRepository.deleteUserById(userId) == 0) {
+            throw new UserNotFoundException(userId);
+        }
+        knownUsers.removed(userId);
     }
 }
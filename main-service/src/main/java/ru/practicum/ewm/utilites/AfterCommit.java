@@ -0,0 +1,32 @@
+package ru.practicum.ewm.utilites;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Выполнение действия после фиксации текущей транзакции, например сброса кэшей: до фиксации параллельный
+ * запрос может снова прочитать старую строку и положить её в кэш. При откате действие не выполняется.
+ * Без транзакции, а также из другого такого действия, оно выполняется сразу.
+ */
+public class AfterCommit {
+    private static final ThreadLocal<Boolean> RUNNING = ThreadLocal.withInitial(() -> false);
+
+    public static void run(Runnable action) {
+        // Синхронизации, зарегистрированные во время afterCommit, уже не вызываются
+        if (!TransactionSynchronizationManager.isSynchronizationActive() || RUNNING.get()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                RUNNING.set(true);
+                try {
+                    action.run();
+                } finally {
+                    RUNNING.remove();
+                }
+            }
+        });
+    }
+}
@@ -40,9 +40,15 @@ public class ErrorHandler {
         return new ErrorResponse(e.getMessage());
     }
 
-    @ExceptionHandler({IncorrectEventDateException.class})
+    @ExceptionHandler({IncorrectEventDateException.class, IncorrectCursorException.class})
     @ResponseStatus(HttpStatus.BAD_REQUEST)
     public ErrorResponse handleBadRequestException(Throwable e) {
         return new ErrorResponse(e.getMessage());
     }
+
+    @ExceptionHandler(RequestsUnavailableException.class)
+    @ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+    public ErrorResponse handleServiceUnavailableException(Throwable e) {
+        return new ErrorResponse(e.getMessage());
+    }
 }
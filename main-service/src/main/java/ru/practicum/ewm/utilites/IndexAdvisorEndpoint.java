@@ -0,0 +1,147 @@
+package ru.practicum.ewm.utilites;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.autoconfigure.endpoint.condition.ConditionalOnAvailableEndpoint;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Диагностика индексов: EXPLAIN запросов, которые приложение действительно выполняло через Hibernate
+ * (их записывает StatementRecorder), с таблицами, читаемыми последовательно.
+ * <p>
+ * Значения параметров не сохраняются, поэтому запрос готовится через PREPARE и разбирается его общий план
+ * (plan_cache_mode = force_generic_plan), не зависящий от значений. На маленькой или пустой базе планировщик
+ * выбирает seq scan и при наличии индекса, поэтому запросы разбираются с enable_seqscan = off: seq scan
+ * в таком плане означает, что подходящего индекса нет и результат не зависит от объёма данных.
+ * Настройки действуют только внутри откатываемой транзакции.
+ * <p>
+ * Эндпоинт выключен по умолчанию: management.endpoint.indexadvisor.enabled=true и indexadvisor
+ * в management.endpoints.web.exposure.include.
+ */
+@Component
+@Endpoint(id = "indexadvisor")
+@ConditionalOnAvailableEndpoint(endpoint = IndexAdvisorEndpoint.class)
+@RequiredArgsConstructor
+public class IndexAdvisorEndpoint {
+    private static final String STATEMENT_NAME = "index_advisor";
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final StatementRecorder statementRecorder;
+
+    /**
+     * Планы всех записанных запросов
+     *
+     * @return План по запросу: откуда выполнялся, таблицы, читаемые последовательно, и оценка стоимости
+     */
+    @ReadOperation
+    public List<QueryPlan> plans() {
+        List<StatementRecorder.QueryShape> shapes = statementRecorder.statements();
+        List<QueryPlan> plans = new ArrayList<>(shapes.size());
+        shapes.forEach(shape -> plans.add(explain(shape)));
+        return plans;
+    }
+
+    private QueryPlan explain(StatementRecorder.QueryShape shape) {
+        try {
+            JsonNode plan = objectMapper.readTree(jdbcTemplate.execute(
+                    (ConnectionCallback<String>) connection -> explainGeneric(connection, shape.getSql()))).get(0).get("Plan");
+            List<String> seqScans = new ArrayList<>();
+            collectSeqScans(plan, seqScans);
+            return new QueryPlan(shape.getOrigin(), shape.getSql(), shape.getExecutions(), seqScans,
+                    plan.get("Total Cost").asDouble(), null);
+        } catch (DataAccessException | JsonProcessingException e) {
+            return new QueryPlan(shape.getOrigin(), shape.getSql(), shape.getExecutions(), List.of(), null,
+                    e.getMessage());
+        }
+    }
+
+    /**
+     * Общий план запроса с параметрами на отдельном соединении в откатываемой транзакции.
+     * PREPARE не откатывается вместе с транзакцией, поэтому подготовленный запрос удаляется отдельно.
+     */
+    private static String explainGeneric(Connection connection, String sql) throws SQLException {
+        boolean autoCommit = connection.getAutoCommit();
+        connection.setAutoCommit(false);
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("SET LOCAL enable_seqscan = off");
+            statement.execute("SET LOCAL plan_cache_mode = force_generic_plan");
+            Map.Entry<String, Integer> numbered = numberParameters(sql);
+            statement.execute("PREPARE " + STATEMENT_NAME + " AS " + numbered.getKey());
+            String arguments = numbered.getValue() == 0 ? ""
+                    : "(" + String.join(", ", Collections.nCopies(numbered.getValue(), "NULL")) + ")";
+            try (ResultSet plan = statement.executeQuery("EXPLAIN (FORMAT JSON) EXECUTE "
+                    + STATEMENT_NAME + arguments)) {
+                plan.next();
+                return plan.getString(1);
+            }
+        } finally {
+            connection.rollback();
+            connection.setAutoCommit(autoCommit);
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("DEALLOCATE " + STATEMENT_NAME);
+            } catch (SQLException e) {
+                // PREPARE не выполнился
+            }
+        }
+    }
+
+    /**
+     * Замена параметров JDBC ? на параметры PREPARE $1, $2, ... вне строковых литералов
+     *
+     * @return Запрос и число параметров
+     */
+    private static Map.Entry<String, Integer> numberParameters(String sql) {
+        StringBuilder numbered = new StringBuilder(sql.length() + 16);
+        boolean literal = false;
+        int parameters = 0;
+        for (char symbol : sql.toCharArray()) {
+            if (symbol == '\'') {
+                literal = !literal;
+            }
+            if (symbol == '?' && !literal) {
+                numbered.append('$').append(++parameters);
+            } else {
+                numbered.append(symbol);
+            }
+        }
+        return Map.entry(numbered.toString(), parameters);
+    }
+
+    private void collectSeqScans(JsonNode node, List<String> seqScans) {
+        if ("Seq Scan".equals(node.path("Node Type").asText())) {
+            seqScans.add(node.path("Relation Name").asText());
+        }
+        for (JsonNode child : node.path("Plans")) {
+            collectSeqScans(child, seqScans);
+        }
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class QueryPlan {
+        private final String origin;
+        private final String sql;
+        private final long executions;
+        private final List<String> seqScans;
+        private final Double totalCost;
+        private final String error;
+    }
+}
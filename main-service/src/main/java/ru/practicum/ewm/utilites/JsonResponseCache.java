@@ -0,0 +1,95 @@
+package ru.practicum.ewm.utilites;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Кэш ответов публичных эндпоинтов в виде готового JSON в UTF-8, который пишется прямо в поток ответа
+ * без построения DTO и сериализации.
+ * <p>
+ * Ответы сгруппированы по разделам. Изменение данных раздела после фиксации транзакции увеличивает его поколение:
+ * поколение входит в ключ, поэтому старые ответы больше не читаются и вытесняются по размеру и времени жизни
+ * (spring.cache.caffeine.spec). Ответ, построенный до фиксации, мог прочитать старые данные, но сохраняется
+ * под поколением, взятым до его построения, и после увеличения поколения тоже не читается.
+ */
+@Component
+public class JsonResponseCache {
+    public static final String NAME = "jsonResponses";
+    public static final String CATEGORIES = "categories";
+    public static final String COMPILATIONS = "compilations";
+    private final Cache cache;
+    private final ObjectMapper objectMapper;
+    private final Map<String, AtomicLong> generations = new ConcurrentHashMap<>();
+
+    public JsonResponseCache(CacheManager cacheManager, ObjectMapper objectMapper) {
+        this.cache = Objects.requireNonNull(cacheManager.getCache(NAME), "Не настроен кэш " + NAME);
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Ответ из кэша или результат loader, сериализованный и положенный в кэш
+     *
+     * @param section Раздел
+     * @param key     Нормализованные параметры запроса
+     * @param loader  Загрузка ответа при промахе
+     * @return JSON ответа
+     */
+    public byte[] get(String section, String key, Supplier<?> loader) {
+        String cacheKey = section + ':' + generation(section).get() + ':' + key;
+        byte[] body = cache.get(cacheKey, byte[].class);
+        if (body == null) {
+            body = serialize(loader.get());
+            cache.put(cacheKey, body);
+        }
+        return body;
+    }
+
+    /**
+     * Сброс всех ответов раздела после фиксации текущей транзакции
+     *
+     * @param section Раздел
+     */
+    public void invalidate(String section) {
+        AtomicLong generation = generation(section);
+        AfterCommit.run(generation::incrementAndGet);
+    }
+
+    public byte[] serialize(Object value) {
+        try {
+            return objectMapper.writeValueAsBytes(value);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Запись готового JSON в ответ со статусом 200
+     *
+     * @param response HTTP-ответ
+     * @param body     JSON
+     */
+    public static void write(HttpServletResponse response, byte[] body) throws IOException {
+        response.setStatus(HttpStatus.OK.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setContentLength(body.length);
+        response.getOutputStream().write(body);
+    }
+
+    private AtomicLong generation(String section) {
+        return generations.computeIfAbsent(section, name -> new AtomicLong());
+    }
+}
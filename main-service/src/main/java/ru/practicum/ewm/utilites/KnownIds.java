@@ -0,0 +1,107 @@
+package ru.practicum.ewm.utilites;
+
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.LongPredicate;
+import java.util.function.Supplier;
+
+/**
+ * Множество существующих ID сущности в BitSet. Загружается из БД при первой проверке,
+ * затем пополняется при создании и очищается при удалении.
+ * <p>
+ * ID из множества считается существующим без запроса к БД. ID, которого нет в множестве, проверяется в БД:
+ * так находятся строки, созданные в обход сервиса, а несуществующий ID стоит один запрос, как и раньше.
+ * <p>
+ * Множество рассчитано на один экземпляр сервиса: удаление, выполненное другим экземпляром или в обход сервиса,
+ * сюда не доходит, и удалённый ID считается существующим до перезапуска. Для нескольких экземпляров
+ * множество не подходит, пока удаления не рассылаются всем экземплярам.
+ */
+public class KnownIds {
+    private final Supplier<List<Long>> loader;
+    private final LongPredicate exists;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private BitSet ids;
+
+    /**
+     * @param loader Загрузка всех ID
+     * @param exists Проверка ID в БД
+     */
+    public KnownIds(Supplier<List<Long>> loader, LongPredicate exists) {
+        this.loader = loader;
+        this.exists = exists;
+    }
+
+    public boolean contains(long id) {
+        if (fits(id)) {
+            lock.readLock().lock();
+            try {
+                if (ids != null && ids.get((int) id)) {
+                    return true;
+                }
+            } finally {
+                lock.readLock().unlock();
+            }
+            if (load()) {
+                return contains(id);
+            }
+        }
+        boolean found = exists.test(id);
+        if (found) {
+            add(id);
+        }
+        return found;
+    }
+
+    public void add(long id) {
+        update(id, true);
+    }
+
+    public void remove(long id) {
+        update(id, false);
+    }
+
+    private void update(long id, boolean value) {
+        if (!fits(id)) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            // До загрузки изменение не сохраняется: загрузка прочитает его из БД
+            if (ids != null) {
+                ids.set((int) id, value);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Загрузка множества, если оно ещё не загружено
+     *
+     * @return true, если множество загружено этим вызовом
+     */
+    private boolean load() {
+        lock.writeLock().lock();
+        try {
+            if (ids != null) {
+                return false;
+            }
+            BitSet loaded = new BitSet();
+            for (Long id : loader.get()) {
+                if (fits(id)) {
+                    loaded.set(id.intValue());
+                }
+            }
+            ids = loaded;
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static boolean fits(long id) {
+        return id >= 0 && id <= Integer.MAX_VALUE;
+    }
+}
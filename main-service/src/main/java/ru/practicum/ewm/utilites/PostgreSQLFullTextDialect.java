@@ -0,0 +1,23 @@
+package ru.practicum.ewm.utilites;
+
+import org.hibernate.dialect.PostgreSQL10Dialect;
+import org.hibernate.dialect.function.SQLFunctionTemplate;
+import org.hibernate.type.StandardBasicTypes;
+
+/**
+ * Диалект PostgreSQL с функциями полнотекстового поиска по событиям:
+ * fts(annotation, description, text) - совпадение с запросом, fts_rank(annotation, description, text) - релевантность.
+ * Выражение to_tsvector совпадает с выражением индекса idx_events_fts, поэтому поиск идёт по GIN-индексу.
+ */
+public class PostgreSQLFullTextDialect extends PostgreSQL10Dialect {
+    private static final String DOCUMENT = "to_tsvector('russian', ?1 || ' ' || ?2)";
+    private static final String QUERY = "websearch_to_tsquery('russian', ?3)";
+
+    public PostgreSQLFullTextDialect() {
+        super();
+        registerFunction("fts", new SQLFunctionTemplate(StandardBasicTypes.BOOLEAN,
+                "(" + DOCUMENT + " @@ " + QUERY + ")"));
+        registerFunction("fts_rank", new SQLFunctionTemplate(StandardBasicTypes.DOUBLE,
+                "ts_rank(" + DOCUMENT + ", " + QUERY + ")"));
+    }
+}
@@ -0,0 +1,95 @@
+package ru.practicum.ewm.utilites;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.springframework.boot.actuate.autoconfigure.endpoint.condition.ConditionalOnAvailableEndpoint;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+/**
+ * Запись SQL, который Hibernate выполняет для репозиториев, для /actuator/indexadvisor.
+ * Списки параметров IN разной длины сводятся к одному параметру, чтобы форма запроса записывалась один раз,
+ * вставки не записываются.
+ * Работает, только пока эндпоинт включён и открыт.
+ */
+@Component
+@ConditionalOnAvailableEndpoint(endpoint = IndexAdvisorEndpoint.class)
+public class StatementRecorder implements StatementInspector, HibernatePropertiesCustomizer {
+    private static final int MAX_STATEMENTS = 500;
+    private static final Pattern PARAMETER_LIST = Pattern.compile("\\(\\?(\\s*,\\s*\\?)+\\)");
+    private static final String PACKAGE = "ru.practicum.ewm.";
+    private final Map<String, RecordedStatement> statements = new ConcurrentHashMap<>();
+
+    @Override
+    public void customize(Map<String, Object> hibernateProperties) {
+        hibernateProperties.put("hibernate.session_factory.statement_inspector", this);
+    }
+
+    @Override
+    public String inspect(String sql) {
+        if (sql.stripLeading().regionMatches(true, 0, "insert", 0, 6)) {
+            return sql;
+        }
+        String shape = PARAMETER_LIST.matcher(sql).replaceAll("(?)");
+        RecordedStatement recorded = statements.get(shape);
+        if (recorded == null && statements.size() < MAX_STATEMENTS) {
+            // Источник ищется по стеку только при первой встрече формы запроса
+            recorded = statements.computeIfAbsent(shape, key -> new RecordedStatement(origin()));
+        }
+        if (recorded != null) {
+            recorded.executions.increment();
+        }
+        return sql;
+    }
+
+    /**
+     * Записанные формы запросов
+     *
+     * @return Запросы в порядке убывания числа выполнений
+     */
+    public List<QueryShape> statements() {
+        List<QueryShape> result = new ArrayList<>(statements.size());
+        statements.forEach((sql, recorded) ->
+                result.add(new QueryShape(recorded.origin, sql, recorded.executions.sum())));
+        result.sort((left, right) -> Long.compare(right.getExecutions(), left.getExecutions()));
+        return result;
+    }
+
+    /**
+     * Первый метод приложения в стеке вызова, не считая прокси
+     */
+    private static String origin() {
+        return StackWalker.getInstance().walk(frames -> frames
+                .filter(frame -> frame.getClassName().startsWith(PACKAGE)
+                        && !frame.getClassName().contains("$$")
+                        && !frame.getClassName().equals(StatementRecorder.class.getName()))
+                .map(frame -> frame.getClassName().substring(PACKAGE.length()) + '.' + frame.getMethodName())
+                .findFirst()
+                .orElse("unknown"));
+    }
+
+    private static class RecordedStatement {
+        private final String origin;
+        private final LongAdder executions = new LongAdder();
+
+        RecordedStatement(String origin) {
+            this.origin = origin;
+        }
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class QueryShape {
+        private final String origin;
+        private final String sql;
+        private final long executions;
+    }
+}
@@ -78,4 +78,27 @@ CREATE TABLE IF NOT EXISTS comments (
 	CONSTRAINT pk_comments PRIMARY KEY (id),
 	CONSTRAINT fk_comments_to_events FOREIGN KEY (event_id) REFERENCES events (id),
 	CONSTRAINT fk_comments_to_users FOREIGN KEY (author_id) REFERENCES users (id)
-);
\ No newline at end of file
+);
+
+CREATE TABLE IF NOT EXISTS event_public_view (
+    id BIGINT NOT NULL,
+    annotation VARCHAR(2000) NOT NULL,
+    description VARCHAR(7000) NOT NULL,
+    title VARCHAR(500) NOT NULL,
+    category_id BIGINT NOT NULL,
+    category_name VARCHAR(255) NOT NULL,
+    initiator_id BIGINT NOT NULL,
+    initiator_name VARCHAR(255) NOT NULL,
+    lat REAL NOT NULL,
+    lon REAL NOT NULL,
+    paid BOOLEAN NOT NULL,
+    participant_limit BIGINT NOT NULL,
+    confirmed_requests BIGINT NOT NULL,
+    available BOOLEAN GENERATED ALWAYS AS (participant_limit = 0 OR confirmed_requests < participant_limit) STORED,
+    request_moderation BOOLEAN NOT NULL,
+    event_date TIMESTAMP NOT NULL,
+    created_on TIMESTAMP NOT NULL,
+    published_on TIMESTAMP,
+    views BIGINT NOT NULL,
+    CONSTRAINT pk_event_public_view PRIMARY KEY (id)
+);
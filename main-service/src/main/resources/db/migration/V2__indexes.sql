@@ -0,0 +1,37 @@
+-- CONCURRENTLY builds do not block writes; Flyway runs this migration outside a transaction
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_events_event_date_id ON events (event_date, id);
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_events_views_id ON events (views DESC, id);
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_events_fts ON events
+    USING GIN (to_tsvector('russian', annotation || ' ' || description));
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_events_state_event_date ON events (state, event_date);
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_events_initiator ON events (initiator_id, id);
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_events_category ON events (category_id);
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_requests_event_status ON requests (event_id, status);
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_requests_requester ON requests (requester_id);
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_event_compilation_compilation ON event_compilation (compilation_id);
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_compilations_pinned ON compilations (pinned, id);
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_comments_event_created ON comments (event_id, created DESC);
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_event_public_view_event_date ON event_public_view (event_date, id);
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_event_public_view_views ON event_public_view (views DESC, id);
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_event_public_view_category ON event_public_view (category_id, event_date);
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_event_public_view_paid ON event_public_view (paid, event_date);
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_event_public_view_available ON event_public_view (event_date) WHERE available;
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_event_public_view_fts ON event_public_view
+    USING GIN (to_tsvector('russian', annotation || ' ' || description));
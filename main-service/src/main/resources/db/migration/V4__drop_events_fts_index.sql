@@ -0,0 +1,3 @@
+-- Full-text search filters event_public_view through fts(), served by idx_event_public_view_fts;
+-- the same GIN index on events is never used and only slows down event writes
+DROP INDEX CONCURRENTLY IF EXISTS idx_events_fts;
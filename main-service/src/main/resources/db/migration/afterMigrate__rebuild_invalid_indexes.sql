@@ -0,0 +1,17 @@
+-- Runs after every migrate. An interrupted CREATE INDEX CONCURRENTLY (V2) leaves an INVALID index,
+-- which the IF NOT EXISTS of a rerun skips, so the index would stay unused. Such indexes are rebuilt here;
+-- REINDEX blocks writes to the table while it runs, which only happens after a failed build
+DO $$
+DECLARE
+    invalid RECORD;
+BEGIN
+    FOR invalid IN
+        SELECT i.indexrelid::regclass AS name
+        FROM pg_index i
+        JOIN pg_class c ON c.oid = i.indexrelid
+        WHERE NOT i.indisvalid AND c.relnamespace = current_schema()::regnamespace
+    LOOP
+        RAISE NOTICE 'Rebuilding invalid index %', invalid.name;
+        EXECUTE format('REINDEX INDEX %s', invalid.name);
+    END LOOP;
+END $$;
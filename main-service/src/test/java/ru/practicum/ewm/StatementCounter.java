@@ -0,0 +1,63 @@
+package ru.practicum.ewm;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Источник данных, который считает подготовленные SQL-запросы: и запросы Hibernate, и запросы JdbcTemplate
+ */
+public class StatementCounter extends DelegatingDataSource {
+    private final AtomicLong statements = new AtomicLong();
+
+    public StatementCounter(DataSource dataSource) {
+        super(dataSource);
+    }
+
+    /**
+     * Количество SQL-запросов, выполненных действием
+     *
+     * @param action Действие
+     * @return Количество запросов
+     */
+    public long count(ThrowingRunnable action) throws Exception {
+        long before = statements.get();
+        action.run();
+        return statements.get() - before;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return counting(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return counting(super.getConnection(username, password));
+    }
+
+    private Connection counting(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    String name = method.getName();
+                    if (name.startsWith("prepare") || name.equals("createStatement")) {
+                        statements.incrementAndGet();
+                    }
+                    try {
+                        return method.invoke(connection, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                });
+    }
+
+    @FunctionalInterface
+    public interface ThrowingRunnable {
+        void run() throws Exception;
+    }
+}
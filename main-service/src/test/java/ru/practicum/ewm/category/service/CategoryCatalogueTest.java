@@ -0,0 +1,72 @@
+package ru.practicum.ewm.category.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+import ru.practicum.ewm.category.dto.CategoryDto;
+import ru.practicum.ewm.category.exception.CategoryNotFoundException;
+import ru.practicum.ewm.category.model.Category;
+import ru.practicum.ewm.category.repository.CategoryRepository;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Снимок категорий меняется только после фиксации транзакции изменения, промах снимка добирается из БД
+ */
+class CategoryCatalogueTest {
+    private final CategoryRepository categoryRepository = mock(CategoryRepository.class);
+    private final CategoryCatalogue catalogue = new CategoryCatalogue(categoryRepository);
+
+    @BeforeEach
+    void setUp() {
+        when(categoryRepository.findAll(any(Sort.class))).thenReturn(List.of(new Category(1, "Концерты")));
+        catalogue.get(1);
+        TransactionSynchronizationManager.initSynchronization();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void putWaitsForCommit() {
+        catalogue.put(CategoryDto.builder().id(1L).name("Выставки").build());
+        assertEquals("Концерты", catalogue.get(1).getName());
+
+        TransactionSynchronizationUtils.invokeAfterCommit(TransactionSynchronizationManager.getSynchronizations());
+        assertEquals("Выставки", catalogue.get(1).getName());
+    }
+
+    @Test
+    void missFallsBackToDatabase() {
+        TransactionSynchronizationManager.clearSynchronization();
+        when(categoryRepository.findById(2L)).thenReturn(Optional.of(new Category(2, "Выставки")));
+
+        assertEquals("Выставки", catalogue.get(2).getName());
+        assertEquals("Выставки", catalogue.get(2).getName());
+        verify(categoryRepository, times(1)).findById(2L);
+        assertThrows(CategoryNotFoundException.class, () -> catalogue.get(3));
+    }
+
+    @Test
+    void rollbackKeepsCategory() {
+        catalogue.put(CategoryDto.builder().id(1L).name("Выставки").build());
+        TransactionSynchronizationManager.clearSynchronization();
+        assertEquals("Концерты", catalogue.get(1).getName());
+    }
+}
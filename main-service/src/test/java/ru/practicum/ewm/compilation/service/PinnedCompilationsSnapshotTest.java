@@ -0,0 +1,58 @@
+package ru.practicum.ewm.compilation.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+import ru.practicum.ewm.compilation.repository.CompilationRepository;
+
+import java.util.List;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Снимок закреплённых подборок сбрасывается только после фиксации транзакции
+ */
+class PinnedCompilationsSnapshotTest {
+    private final CompilationRepository compilationRepository = mock(CompilationRepository.class);
+    private final PinnedCompilationsSnapshot snapshot = new PinnedCompilationsSnapshot(compilationRepository);
+
+    @BeforeEach
+    void setUp() {
+        when(compilationRepository.findAllPinnedWithEvents()).thenReturn(List.of());
+        snapshot.get(PageRequest.of(0, 10));
+        TransactionSynchronizationManager.initSynchronization();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void clearWaitsForCommit() {
+        snapshot.clear();
+        snapshot.get(PageRequest.of(0, 10));
+        verify(compilationRepository, times(1)).findAllPinnedWithEvents();
+
+        TransactionSynchronizationUtils.invokeAfterCommit(TransactionSynchronizationManager.getSynchronizations());
+        TransactionSynchronizationManager.clearSynchronization();
+        snapshot.get(PageRequest.of(0, 10));
+        verify(compilationRepository, times(2)).findAllPinnedWithEvents();
+    }
+
+    @Test
+    void rollbackKeepsSnapshot() {
+        snapshot.clear();
+        TransactionSynchronizationManager.clearSynchronization();
+        snapshot.get(PageRequest.of(0, 10));
+        verify(compilationRepository, times(1)).findAllPinnedWithEvents();
+    }
+}
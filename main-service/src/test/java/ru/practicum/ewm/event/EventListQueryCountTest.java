@@ -0,0 +1,115 @@
+package ru.practicum.ewm.event;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import ru.practicum.ewm.StatementCounter;
+import ru.practicum.ewm.TestDatabaseConfiguration;
+
+import javax.persistence.EntityManagerFactory;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Число SQL-запросов на страницу списков событий не зависит от размера страницы:
+ * связи события загружаются вместе с ним, а не отдельным запросом на каждое событие.
+ * Кэш второго уровня перед замером очищается, иначе он скрыл бы отдельные загрузки связей.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@Import(TestDatabaseConfiguration.class)
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class EventListQueryCountTest {
+    private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private static final int EVENTS = 30;
+    /**
+     * Страница и количество строк
+     */
+    private static final long PUBLIC_LIST_STATEMENTS = 2;
+    private static final long ADMIN_LIST_STATEMENTS = 2;
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private StatementCounter statementCounter;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    private long categoryId;
+
+    @BeforeAll
+    void seed() throws Exception {
+        categoryId = create("/admin/categories", Map.of("name", "Категория " + UUID.randomUUID())).get("id").asLong();
+        long[] users = new long[3];
+        for (int i = 0; i < users.length; i++) {
+            String name = "user" + UUID.randomUUID();
+            users[i] = create("/admin/users", Map.of("name", name, "email", name + "@mail.ru")).get("id").asLong();
+        }
+        for (int i = 0; i < EVENTS; i++) {
+            long eventId = create("/users/" + users[i % users.length] + "/events", Map.of(
+                    "annotation", "Аннотация события номер " + i,
+                    "category", categoryId,
+                    "description", "Описание события номер " + i,
+                    "eventDate", LocalDateTime.now().plusDays(1 + i).format(FORMATTER),
+                    "location", Map.of("lat", 55.75 + i, "lon", 37.61 + i),
+                    "title", "Событие " + i)).get("id").asLong();
+            mockMvc.perform(patch("/admin/events/" + eventId)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(Map.of("stateAction", "PUBLISH_EVENT"))))
+                    .andExpect(status().isOk());
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 10, EVENTS})
+    void publicListStatementsDoNotDependOnPageSize(int size) throws Exception {
+        entityManagerFactory.getCache().evictAll();
+        long statements = statementCounter.count(() -> assertEquals(size,
+                getList("/events?categories=" + categoryId + "&sort=EVENT_DATE&size=" + size).size()));
+
+        assertEquals(PUBLIC_LIST_STATEMENTS, statements);
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 10, EVENTS})
+    void adminListStatementsDoNotDependOnPageSize(int size) throws Exception {
+        entityManagerFactory.getCache().evictAll();
+        long statements = statementCounter.count(() -> assertEquals(size,
+                getList("/admin/events?categories=" + categoryId + "&size=" + size).size()));
+
+        assertEquals(ADMIN_LIST_STATEMENTS, statements);
+    }
+
+    private JsonNode create(String path, Object body) throws Exception {
+        String response = mockMvc.perform(post(path)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(body)))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(response);
+    }
+
+    private JsonNode getList(String path) throws Exception {
+        String response = mockMvc.perform(get(path))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(response);
+    }
+}
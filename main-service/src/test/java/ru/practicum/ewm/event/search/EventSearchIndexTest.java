@@ -0,0 +1,98 @@
+package ru.practicum.ewm.event.search;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+import ru.practicum.ewm.category.model.Category;
+import ru.practicum.ewm.event.model.Event;
+import ru.practicum.ewm.event.model.EventCursor;
+import ru.practicum.ewm.event.model.Status;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Сортировка и разбиение на страницы выдачи поиска в индексе в памяти
+ */
+class EventSearchIndexTest {
+    private static final LocalDateTime NOW = LocalDateTime.of(2030, 1, 1, 12, 0);
+    private EventSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new EventSearchIndex(null, "memory");
+        index.update(event(1, NOW.plusDays(3), 5, 0, 0));
+        index.update(event(2, NOW.plusDays(1), 20, 2, 2));
+        index.update(event(3, NOW.plusDays(2), 20, 0, 0));
+        index.update(event(4, NOW.plusDays(4), 1, 10, 3));
+        index.update(event(5, NOW.plusDays(5), 7, 0, 0));
+    }
+
+    @Test
+    void pagesByEventDate() {
+        assertEquals(List.of(2L, 3L), search(false, EventCursor.EVENT_DATE, null, 0, 2));
+        assertEquals(List.of(1L, 4L), search(false, EventCursor.EVENT_DATE, null, 2, 2));
+        assertEquals(List.of(5L), search(false, EventCursor.EVENT_DATE, null, 4, 2));
+    }
+
+    @Test
+    void pagesByViewsThenId() {
+        assertEquals(List.of(2L, 3L, 5L, 1L, 4L), search(false, EventCursor.VIEWS, null, 0, 10));
+        EventCursor cursor = EventCursor.of(EventCursor.VIEWS, NOW.plusDays(1), 20, 2);
+        assertEquals(List.of(3L, 5L), search(false, EventCursor.VIEWS, cursor, 0, 2));
+    }
+
+    @Test
+    void filtersUnavailableAndFollowsCounters() {
+        assertEquals(List.of(3L, 1L, 4L, 5L), search(true, EventCursor.EVENT_DATE, null, 0, 10));
+        index.updateCounters(4, 100, false);
+        index.updateCounters(2, 0, true);
+        assertEquals(List.of(2L, 3L, 1L, 5L), search(true, EventCursor.EVENT_DATE, null, 0, 10));
+        assertEquals(List.of(4L, 3L), search(false, EventCursor.VIEWS, null, 0, 2));
+    }
+
+    @Test
+    void skipsIdsBeyondBitSetRange() {
+        index.update(event(Integer.MAX_VALUE + 1L, NOW.plusDays(1), 0, 0, 0));
+        assertEquals(List.of(2L, 3L, 1L, 4L, 5L), search(false, EventCursor.EVENT_DATE, null, 0, 10));
+    }
+
+    @Test
+    void reindexesAfterCommit() {
+        Event unpublished = event(3, NOW.plusDays(2), 20, 0, 0);
+        unpublished.setState(Status.CANCELED);
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            index.update(unpublished);
+            index.update(event(6, NOW.plusDays(6), 0, 0, 0));
+            assertEquals(List.of(2L, 3L, 1L, 4L, 5L), search(false, EventCursor.EVENT_DATE, null, 0, 10));
+            TransactionSynchronizationUtils.invokeAfterCommit(TransactionSynchronizationManager.getSynchronizations());
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        assertEquals(List.of(2L, 1L, 4L, 5L, 6L), search(false, EventCursor.EVENT_DATE, null, 0, 10));
+    }
+
+    private List<Long> search(boolean onlyAvailable, String order, EventCursor cursor, long offset, int limit) {
+        return index.search("концерт", null, null, NOW, null, onlyAvailable, order, cursor, offset, limit);
+    }
+
+    private static Event event(long id, LocalDateTime eventDate, int views, int limit, int confirmed) {
+        return Event.builder()
+                .id(id)
+                .title("Концерт " + id)
+                .annotation("Аннотация")
+                .description("Описание")
+                .category(new Category(1, "Музыка"))
+                .paid(false)
+                .eventDate(eventDate)
+                .views(views)
+                .participantLimit(limit)
+                .confirmedRequests(confirmed)
+                .state(Status.PUBLISHED)
+                .build();
+    }
+}
@@ -0,0 +1,66 @@
+package ru.practicum.ewm.migration;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Индексы миграций: неиспользуемый полнотекстовый индекс events удалён,
+ * индекс, оставшийся INVALID после прерванной сборки, перестраивается следующей миграцией
+ */
+class IndexMigrationsTest {
+    private EmbeddedPostgres postgres;
+    private HikariDataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+    private Flyway flyway;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        postgres = EmbeddedPostgres.start();
+        dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl(postgres.getJdbcUrl("postgres", "postgres"));
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        flyway = Flyway.configure()
+                .dataSource(dataSource)
+                .locations("classpath:db/migration", "classpath:ru/practicum/ewm/migration")
+                .load();
+        flyway.migrate();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        dataSource.close();
+        postgres.close();
+    }
+
+    @Test
+    void eventsFullTextIndexIsDropped() {
+        assertTrue(jdbcTemplate.queryForObject("SELECT to_regclass('idx_events_fts') IS NULL", Boolean.class));
+        assertTrue(valid("idx_event_public_view_fts"));
+    }
+
+    @Test
+    void invalidIndexIsRebuiltOnMigrate() {
+        jdbcTemplate.update("UPDATE pg_index SET indisvalid = false " +
+                "WHERE indexrelid = 'idx_events_category'::regclass");
+        assertFalse(valid("idx_events_category"));
+
+        flyway.migrate();
+
+        assertTrue(valid("idx_events_category"));
+    }
+
+    private boolean valid(String index) {
+        return jdbcTemplate.queryForObject("SELECT indisvalid FROM pg_index WHERE indexrelid = ?::regclass",
+                Boolean.class, index);
+    }
+}
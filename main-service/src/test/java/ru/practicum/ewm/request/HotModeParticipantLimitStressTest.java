@@ -0,0 +1,40 @@
+package ru.practicum.ewm.request;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.context.TestPropertySource;
+import ru.practicum.ewm.event.dto.EventRequestStatusUpdateRequest;
+import ru.practicum.ewm.request.exception.NoEmptyPlaceEventException;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Те же проверки в режиме массовой записи, а также возврат к БД, когда счётчики мест в памяти отстали
+ * от подтверждений инициатора
+ */
+@TestPropertySource(properties = "ewm.requests.hot-mode.enabled=true")
+class HotModeParticipantLimitStressTest extends ParticipantLimitStressTest {
+
+    @Test
+    void staleSlotsFallBackToDatabase() throws Exception {
+        long initiatorId = createUser();
+        long eventId = createLimitedEvent(initiatorId);
+        List<Long> pending = postRequests(eventId, 5);
+        patchEvent(eventId, Map.of("requestModeration", false));
+        // Первая заявка заводит счётчик в памяти: свободно LIMIT - 1
+        postRequests(eventId, 1);
+        // Инициатор подтверждает заявки мимо счётчика, в БД остаётся LIMIT - 6 мест
+        eventService.patchStatusRequestCurrentUser(initiatorId, eventId,
+                new EventRequestStatusUpdateRequest(pending, "CONFIRMED"));
+
+        int confirmed = runConcurrently(autoConfirmTasks(eventId, LIMIT - 1));
+
+        assertEquals(LIMIT - 6, confirmed);
+        assertConfirmed(eventId, LIMIT);
+        long userId = createUser();
+        assertThrows(NoEmptyPlaceEventException.class, () -> requestService.postRequest(userId, eventId));
+    }
+}
@@ -0,0 +1,194 @@
+package ru.practicum.ewm.request;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.RepeatedTest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import ru.practicum.ewm.TestDatabaseConfiguration;
+import ru.practicum.ewm.event.dto.EventRequestStatusUpdateRequest;
+import ru.practicum.ewm.event.model.Status;
+import ru.practicum.ewm.event.service.EventService;
+import ru.practicum.ewm.request.service.RequestService;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Места события с лимитом не раздаются сверх лимита, когда одновременно идут автоматическое подтверждение
+ * заявок на событие без пре-модерации и подтверждение накопившихся заявок инициатором.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@Import(TestDatabaseConfiguration.class)
+class ParticipantLimitStressTest {
+    protected static final int LIMIT = 10;
+    private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    /**
+     * Заявки, поданные до отключения пре-модерации
+     */
+    private static final int PENDING = 20;
+    /**
+     * Заявки, подтверждаемые автоматически
+     */
+    private static final int AUTO = 30;
+    private static final int PATCHES = 4;
+    @Autowired
+    protected RequestService requestService;
+    @Autowired
+    protected EventService eventService;
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @RepeatedTest(3)
+    void confirmedRequestsNeverExceedLimit() throws Exception {
+        long initiatorId = createUser();
+        long eventId = createLimitedEvent(initiatorId);
+        List<Long> pending = postRequests(eventId, PENDING);
+        patchEvent(eventId, Map.of("requestModeration", false));
+
+        List<Callable<Integer>> tasks = new ArrayList<>(autoConfirmTasks(eventId, AUTO));
+        int chunk = PENDING / PATCHES;
+        for (int from = 0; from < PENDING; from += chunk) {
+            List<Long> ids = pending.subList(from, from + chunk);
+            tasks.add(() -> eventService.patchStatusRequestCurrentUser(initiatorId, eventId,
+                    new EventRequestStatusUpdateRequest(ids, "CONFIRMED")).getConfirmedRequests().size());
+        }
+        int confirmed = runConcurrently(tasks);
+
+        assertTrue(confirmed <= LIMIT, "Подтверждено " + confirmed + " при лимите " + LIMIT);
+        assertConfirmed(eventId, confirmed);
+    }
+
+    /**
+     * Событие с лимитом LIMIT и пре-модерацией заявок
+     */
+    protected long createLimitedEvent(long initiatorId) throws Exception {
+        long categoryId = create("/admin/categories", Map.of("name", "Категория " + UUID.randomUUID()))
+                .get("id").asLong();
+        long eventId = create("/users/" + initiatorId + "/events", Map.of(
+                "annotation", "Аннотация события с лимитом участников",
+                "category", categoryId,
+                "description", "Описание события с лимитом участников",
+                "eventDate", LocalDateTime.now().plusDays(1).format(FORMATTER),
+                "location", Map.of("lat", 55.75, "lon", 37.61),
+                "participantLimit", LIMIT,
+                "requestModeration", true,
+                "title", "Событие с лимитом")).get("id").asLong();
+        patchEvent(eventId, Map.of("stateAction", "PUBLISH_EVENT"));
+        return eventId;
+    }
+
+    /**
+     * Заявки новых пользователей на событие
+     *
+     * @return ID заявок
+     */
+    protected List<Long> postRequests(long eventId, int count) throws Exception {
+        List<Long> ids = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            ids.add(requestService.postRequest(createUser(), eventId).getId());
+        }
+        return ids;
+    }
+
+    /**
+     * Заявки новых пользователей, каждая возвращает 1, если подтверждена
+     */
+    protected List<Callable<Integer>> autoConfirmTasks(long eventId, int count) throws Exception {
+        List<Callable<Integer>> tasks = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            long userId = createUser();
+            tasks.add(() -> requestService.postRequest(userId, eventId).getStatus() == Status.CONFIRMED ? 1 : 0);
+        }
+        return tasks;
+    }
+
+    /**
+     * Одновременный запуск задач
+     *
+     * @return Сумма результатов, отказ задачи считается нулём
+     */
+    protected int runConcurrently(List<Callable<Integer>> tasks) throws Exception {
+        int confirmed = 0;
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<Integer>> results = new ArrayList<>();
+            tasks.forEach(task -> results.add(executor.submit(() -> {
+                start.await();
+                try {
+                    return task.call();
+                } catch (RuntimeException e) {
+                    // Мест нет или заявки уже отклонены параллельным подтверждением
+                    return 0;
+                }
+            })));
+            start.countDown();
+            for (Future<Integer> result : results) {
+                confirmed += result.get(1, TimeUnit.MINUTES);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        return confirmed;
+    }
+
+    /**
+     * Число подтверждённых заявок в БД и счётчик события совпадают с ожидаемым
+     */
+    protected void assertConfirmed(long eventId, int expected) {
+        Integer counter = jdbcTemplate.queryForObject("SELECT confirmed_requests FROM events WHERE id = ?",
+                Integer.class, eventId);
+        Integer rows = jdbcTemplate.queryForObject("SELECT count(*) FROM requests WHERE event_id = ? " +
+                "AND status = 'CONFIRMED'", Integer.class, eventId);
+        assertEquals(expected, rows);
+        assertEquals(rows, counter);
+    }
+
+    protected long createUser() throws Exception {
+        String name = "user" + UUID.randomUUID();
+        return create("/admin/users", Map.of("name", name, "email", name + "@mail.ru")).get("id").asLong();
+    }
+
+    protected void patchEvent(long eventId, Object body) throws Exception {
+        mockMvc.perform(patch("/admin/events/" + eventId)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(body)))
+                .andExpect(status().isOk());
+    }
+
+    private JsonNode create(String path, Object body) throws Exception {
+        String response = mockMvc.perform(post(path)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(body)))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(response);
+    }
+}
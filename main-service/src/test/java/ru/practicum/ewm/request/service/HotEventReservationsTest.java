@@ -0,0 +1,113 @@
+package ru.practicum.ewm.request.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.ewm.compilation.service.PinnedCompilationsSnapshot;
+import ru.practicum.ewm.event.model.Event;
+import ru.practicum.ewm.event.repository.EventPublicViewJdbcRepository;
+import ru.practicum.ewm.event.repository.EventRepository;
+import ru.practicum.ewm.event.service.EventDetailsCache;
+import ru.practicum.ewm.request.exception.RequestsUnavailableException;
+import ru.practicum.ewm.request.model.ParticipationRequest;
+import ru.practicum.ewm.request.repository.RequestRepository;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Ожидание подтверждения в режиме массовой записи ограничено по времени и прекращается при остановке
+ */
+class HotEventReservationsTest {
+    private final TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+    private final CountDownLatch saving = new CountDownLatch(1);
+    private HotEventReservations reservations;
+
+    @AfterEach
+    void tearDown() {
+        saving.countDown();
+        reservations.destroy();
+    }
+
+    @Test
+    void requestNotTakenInTimeIsWithdrawn() throws Exception {
+        reservations = reservations(200);
+        blockSaving();
+        CompletableFuture<ParticipationRequest> first = confirmAsync();
+        verify(transactionTemplate, timeout(5000)).execute(any());
+
+        // Группа с первой заявкой сохраняется, вторая ждёт в очереди и отзывается по таймауту
+        assertThrows(RequestsUnavailableException.class, () -> reservations.confirm(event(), request()));
+        saving.countDown();
+        assertUnavailable(first);
+        verify(transactionTemplate, times(1)).execute(any());
+    }
+
+    @Test
+    void rejectsRequestsAfterShutdown() {
+        reservations = reservations(60_000);
+        reservations.destroy();
+
+        assertThrows(RequestsUnavailableException.class, () -> reservations.confirm(event(), request()));
+    }
+
+    @Test
+    void queuedRequestsFailAsUnavailableOnShutdown() throws Exception {
+        reservations = reservations(60_000);
+        blockSaving();
+        confirmAsync();
+        verify(transactionTemplate, timeout(5000)).execute(any());
+        CompletableFuture<ParticipationRequest> queued = confirmAsync();
+        Thread.sleep(100);
+
+        reservations.destroy();
+        assertUnavailable(queued);
+    }
+
+    private void blockSaving() {
+        when(transactionTemplate.execute(any())).thenAnswer(invocation -> {
+            try {
+                saving.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(e);
+            }
+            return Map.of();
+        });
+    }
+
+    private CompletableFuture<ParticipationRequest> confirmAsync() {
+        return CompletableFuture.supplyAsync(() -> reservations.confirm(event(), request()));
+    }
+
+    private static void assertUnavailable(CompletableFuture<ParticipationRequest> result) {
+        ExecutionException e = assertThrows(ExecutionException.class, () -> result.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(RequestsUnavailableException.class, e.getCause());
+    }
+
+    private HotEventReservations reservations(long confirmTimeoutMs) {
+        return new HotEventReservations(mock(EventRepository.class), mock(EventPublicViewJdbcRepository.class),
+                mock(RequestRepository.class), mock(EventDetailsCache.class), mock(PinnedCompilationsSnapshot.class),
+                transactionTemplate, true, 10, confirmTimeoutMs);
+    }
+
+    private static Event event() {
+        return Event.builder().id(1L).participantLimit(0).build();
+    }
+
+    private static ParticipationRequest request() {
+        return ParticipationRequest.builder().build();
+    }
+}
@@ -0,0 +1,55 @@
+package ru.practicum.ewm.utilites;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.web.servlet.MockMvc;
+import ru.practicum.ewm.TestDatabaseConfiguration;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Индексный советник разбирает запросы, которые приложение выполнило, а не заранее выписанные
+ */
+@SpringBootTest(properties = {
+        "management.endpoint.indexadvisor.enabled=true",
+        "management.endpoints.web.exposure.include=indexadvisor"})
+@AutoConfigureMockMvc
+@Import(TestDatabaseConfiguration.class)
+class IndexAdvisorEndpointTest {
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void plansExecutedQueries() throws Exception {
+        mockMvc.perform(get("/admin/events?size=5")).andExpect(status().isOk());
+        mockMvc.perform(get("/events?sort=EVENT_DATE&size=5")).andExpect(status().isOk());
+        mockMvc.perform(get("/events?text=test&sort=EVENT_DATE&size=5")).andExpect(status().isOk());
+        mockMvc.perform(get("/admin/users?ids=1,2,3")).andExpect(status().isOk());
+        String response = mockMvc.perform(get("/actuator/indexadvisor"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        Map<String, JsonNode> plans = new HashMap<>();
+        objectMapper.readTree(response).forEach(plan -> plans.put(plan.get("origin").asText(), plan));
+
+        assertTrue(plans.containsKey("event.service.EventServiceImpl.getEventsAdmin"), plans.keySet().toString());
+        assertTrue(plans.containsKey("event.service.EventServiceImpl.getEventUser"), plans.keySet().toString());
+        JsonNode users = plans.get("user.service.UserServiceImpl.getUsers");
+        assertTrue(users.get("sql").asText().contains(" in (?)"), users.get("sql").asText());
+        plans.values().forEach(plan -> {
+            assertTrue(plan.get("error").isNull(), plan.get("error").asText());
+            assertTrue(plan.get("totalCost").asDouble() > 0);
+        });
+    }
+}
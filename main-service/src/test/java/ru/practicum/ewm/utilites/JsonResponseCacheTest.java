@@ -0,0 +1,56 @@
+package ru.practicum.ewm.utilites;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Поколение раздела увеличивается только после фиксации транзакции изменения
+ */
+class JsonResponseCacheTest {
+    private final JsonResponseCache cache = new JsonResponseCache(
+            new ConcurrentMapCacheManager(JsonResponseCache.NAME), new ObjectMapper());
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void invalidateWaitsForCommit() {
+        assertEquals("1", get());
+        TransactionSynchronizationManager.initSynchronization();
+        cache.invalidate(JsonResponseCache.CATEGORIES);
+        // Ответ, построенный до фиксации, остаётся под старым поколением
+        assertEquals("1", get());
+
+        TransactionSynchronizationUtils.invokeAfterCommit(TransactionSynchronizationManager.getSynchronizations());
+        TransactionSynchronizationManager.clearSynchronization();
+        assertEquals("2", get());
+    }
+
+    @Test
+    void rollbackKeepsResponses() {
+        assertEquals("1", get());
+        TransactionSynchronizationManager.initSynchronization();
+        cache.invalidate(JsonResponseCache.CATEGORIES);
+        TransactionSynchronizationManager.clearSynchronization();
+        assertEquals("1", get());
+    }
+
+    private String get() {
+        return new String(cache.get(JsonResponseCache.CATEGORIES, "list", loads::incrementAndGet),
+                StandardCharsets.UTF_8);
+    }
+}
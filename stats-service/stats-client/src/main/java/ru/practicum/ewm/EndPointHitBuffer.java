@@ -0,0 +1,205 @@
+package ru.practicum.ewm;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Ограниченная очередь просмотров, которая отправляется на сервер статистики в фоне
+ * пачками: по заполнению batchSize или по истечении flushInterval.
+ * Поток запроса платит только за постановку в очередь.
+ * <p>
+ * Неудачная отправка пачки повторяется до maxRetries раз с удвоением паузы, начиная с retryBackoffMs.
+ * Счетчики буфера публикуются в Micrometer как stats.hits.*.
+ */
+@Slf4j
+public class EndPointHitBuffer implements MeterBinder {
+    private final BlockingQueue<EndPointHitDto> queue;
+    private final int batchSize;
+    private final HitDropPolicy dropPolicy;
+    private final long offerTimeoutMs;
+    private final int maxRetries;
+    private final long retryBackoffMs;
+    private final Consumer<List<EndPointHitDto>> sender;
+    private final ScheduledExecutorService executor;
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+    private final AtomicLong queued = new AtomicLong();
+    private final AtomicLong flushed = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong retries = new AtomicLong();
+
+    public EndPointHitBuffer(int capacity, int batchSize, long flushIntervalMs, HitDropPolicy dropPolicy,
+                             long offerTimeoutMs, int maxRetries, long retryBackoffMs,
+                             Consumer<List<EndPointHitDto>> sender) {
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.batchSize = batchSize;
+        this.dropPolicy = dropPolicy;
+        this.offerTimeoutMs = offerTimeoutMs;
+        this.maxRetries = maxRetries;
+        this.retryBackoffMs = retryBackoffMs;
+        this.sender = sender;
+        this.executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "stats-hit-flusher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.executor.scheduleWithFixedDelay(this::flush, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Постановка просмотра в очередь
+     *
+     * @param hit Просмотр
+     * @return true, если просмотр принят в очередь
+     */
+    public boolean offer(EndPointHitDto hit) {
+        boolean accepted;
+        switch (dropPolicy) {
+            case DROP_OLDEST:
+                while (!queue.offer(hit)) {
+                    if (queue.poll() != null) {
+                        dropped.incrementAndGet();
+                    }
+                }
+                accepted = true;
+                break;
+            case BLOCK:
+                try {
+                    accepted = queue.offer(hit, offerTimeoutMs, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    accepted = false;
+                }
+                break;
+            default:
+                accepted = queue.offer(hit);
+        }
+        if (!accepted) {
+            dropped.incrementAndGet();
+            return false;
+        }
+        queued.incrementAndGet();
+        if (queue.size() >= batchSize && flushRequested.compareAndSet(false, true)) {
+            try {
+                executor.execute(this::flush);
+            } catch (RejectedExecutionException e) {
+                flushRequested.set(false);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Отправка накопленных просмотров пачками
+     */
+    public void flush() {
+        flushRequested.set(false);
+        List<EndPointHitDto> batch = new ArrayList<>(batchSize);
+        while (queue.drainTo(batch, batchSize) > 0) {
+            if (send(batch)) {
+                flushed.addAndGet(batch.size());
+            } else {
+                dropped.addAndGet(batch.size());
+            }
+            batch.clear();
+        }
+    }
+
+    /**
+     * Отправка пачки с повторами
+     *
+     * @param batch Пачка просмотров
+     * @return true, если пачка отправлена
+     */
+    private boolean send(List<EndPointHitDto> batch) {
+        long backoffMs = retryBackoffMs;
+        for (int attempt = 0; ; attempt++) {
+            try {
+                sender.accept(batch);
+                return true;
+            } catch (RuntimeException e) {
+                if (attempt >= maxRetries || !pause(backoffMs)) {
+                    log.warn("Не удалось отправить {} просмотров на сервер статистики за {} попыток: {}",
+                            batch.size(), attempt + 1, e.getMessage());
+                    return false;
+                }
+                retries.incrementAndGet();
+                backoffMs *= 2;
+            }
+        }
+    }
+
+    private static boolean pause(long ms) {
+        try {
+            TimeUnit.MILLISECONDS.sleep(ms);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * Остановка фоновой отправки с отправкой остатка очереди
+     */
+    public void close() {
+        executor.shutdown();
+        try {
+            executor.awaitTermination(offerTimeoutMs + 1000, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+        log.info("Буфер просмотров остановлен: queued={}, flushed={}, dropped={}",
+                queued.get(), flushed.get(), dropped.get());
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("stats.hits.queued", queued, AtomicLong::get)
+                .description("Просмотры, принятые в очередь")
+                .register(registry);
+        FunctionCounter.builder("stats.hits.flushed", flushed, AtomicLong::get)
+                .description("Просмотры, отправленные на сервер статистики")
+                .register(registry);
+        FunctionCounter.builder("stats.hits.dropped", dropped, AtomicLong::get)
+                .description("Просмотры, отброшенные при переполнении очереди или после неудачных повторов")
+                .register(registry);
+        FunctionCounter.builder("stats.hits.retries", retries, AtomicLong::get)
+                .description("Повторные отправки пачек")
+                .register(registry);
+        Gauge.builder("stats.hits.pending", queue, BlockingQueue::size)
+                .description("Просмотры в очереди")
+                .register(registry);
+    }
+
+    public long getQueuedCount() {
+        return queued.get();
+    }
+
+    public long getFlushedCount() {
+        return flushed.get();
+    }
+
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    public int getPendingCount() {
+        return queue.size();
+    }
+}
@@ -0,0 +1,19 @@
+package ru.practicum.ewm;
+
+/**
+ * Поведение буфера просмотров при переполнении очереди
+ */
+public enum HitDropPolicy {
+    /**
+     * Отбросить новый просмотр
+     */
+    DROP_NEWEST,
+    /**
+     * Вытеснить самый старый просмотр из очереди
+     */
+    DROP_OLDEST,
+    /**
+     * Ждать освобождения места не дольше offer-timeout, затем отбросить
+     */
+    BLOCK
+}
@@ -1,30 +1,58 @@
 package ru.practicum.ewm;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.lang.Nullable;
 import org.springframework.stereotype.Service;
+import org.springframework.web.client.RestClientException;
 import org.springframework.web.util.DefaultUriBuilderFactory;
 
+import javax.annotation.PreDestroy;
 import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 @Service
 public class StatsClient extends BaseClient {
+    private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private final EndPointHitBuffer hitBuffer;
+
     @Autowired
-    public StatsClient(@Value("${emw-stats-server.url}") String serverUrl, RestTemplateBuilder builder) {
+    public StatsClient(@Value("${emw-stats-server.url}") String serverUrl,
+                       @Value("${emw-stats-server.hits.queue-capacity:10000}") int queueCapacity,
+                       @Value("${emw-stats-server.hits.batch-size:100}") int batchSize,
+                       @Value("${emw-stats-server.hits.flush-interval-ms:1000}") long flushIntervalMs,
+                       @Value("${emw-stats-server.hits.drop-policy:DROP_NEWEST}") HitDropPolicy dropPolicy,
+                       @Value("${emw-stats-server.hits.offer-timeout-ms:50}") long offerTimeoutMs,
+                       @Value("${emw-stats-server.hits.max-retries:1}") int maxRetries,
+                       @Value("${emw-stats-server.hits.retry-backoff-ms:200}") long retryBackoffMs,
+                       RestTemplateBuilder builder,
+                       ObjectProvider<MeterRegistry> meterRegistry) {
         super(
                 builder
                         .uriTemplateHandler(new DefaultUriBuilderFactory(serverUrl))
                         .requestFactory(HttpComponentsClientHttpRequestFactory::new)
                         .build()
         );
+        this.hitBuffer = new EndPointHitBuffer(queueCapacity, batchSize, flushIntervalMs, dropPolicy,
+                offerTimeoutMs, maxRetries, retryBackoffMs, this::sendHits);
+        meterRegistry.ifAvailable(hitBuffer::bindTo);
     }
 
-    public ResponseEntity<Object> postEndPointHits(String app, String uri, String ip, LocalDateTime timestamp) {
-        return post("/hit", EndPointHitDto.builder()
+    /**
+     * Постановка просмотра в очередь на отправку. Сам запрос к серверу статистики выполняется в фоне.
+     *
+     * @return true, если просмотр принят в очередь
+     */
+    public boolean postEndPointHits(String app, String uri, String ip, LocalDateTime timestamp) {
+        return hitBuffer.offer(EndPointHitDto.builder()
                 .app(app)
                 .uri(uri)
                 .ip(ip)
@@ -40,4 +68,43 @@ public class StatsClient extends BaseClient {
                 "unique", unique);
         return get("/stats?start={start}&end={end}&uris={uris}&unique={unique}", parameters);
     }
-}
\ No newline at end of file
+
+    /**
+     * Статистика посещения по URI в виде списка
+     *
+     * @param uris   URI, null - все
+     * @param approx Приближённый подсчёт уникальных посещений
+     * @throws RestClientException если сервер статистики недоступен или ответил ошибкой
+     */
+    public List<ViewStatsDto> getViewStats(LocalDateTime start, LocalDateTime end, @Nullable List<String> uris,
+                                           boolean unique, boolean approx) {
+        Map<String, Object> parameters = new HashMap<>();
+        parameters.put("start", start.format(FORMATTER));
+        parameters.put("end", end.format(FORMATTER));
+        parameters.put("unique", unique);
+        parameters.put("approx", approx);
+        String path = "/stats?start={start}&end={end}&unique={unique}&approx={approx}";
+        if (uris != null) {
+            parameters.put("uris", String.join(",", uris));
+            path += "&uris={uris}";
+        }
+        ViewStatsDto[] stats = rest.getForObject(path, ViewStatsDto[].class, parameters);
+        return stats == null ? List.of() : List.of(stats);
+    }
+
+    public EndPointHitBuffer getHitBuffer() {
+        return hitBuffer;
+    }
+
+    @PreDestroy
+    public void close() {
+        hitBuffer.close();
+    }
+
+    private void sendHits(List<EndPointHitDto> hits) {
+        ResponseEntity<Object> response = post("/hits", hits);
+        if (!response.getStatusCode().is2xxSuccessful()) {
+            throw new RestClientException("Сервер статистики ответил " + response.getStatusCode());
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package ru.practicum.ewm;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Политики переполнения, повторы отправки и отправка остатка при остановке буфера просмотров.
+ * Фоновая отправка по времени в тестах не срабатывает: интервал - час.
+ */
+class EndPointHitBufferTest {
+    private static final long HOUR_MS = TimeUnit.HOURS.toMillis(1);
+    private final List<String> sent = new CopyOnWriteArrayList<>();
+    private EndPointHitBuffer buffer;
+
+    @AfterEach
+    void tearDown() {
+        if (buffer != null) {
+            buffer.close();
+        }
+    }
+
+    @Test
+    void dropNewestRejectsHitWhenFull() {
+        buffer = buffer(HitDropPolicy.DROP_NEWEST, 0, 0, this::record);
+
+        assertTrue(buffer.offer(hit("/events/1")));
+        assertTrue(buffer.offer(hit("/events/2")));
+        assertFalse(buffer.offer(hit("/events/3")));
+        buffer.flush();
+
+        assertEquals(List.of("/events/1", "/events/2"), sent);
+        assertEquals(2, buffer.getQueuedCount());
+        assertEquals(1, buffer.getDroppedCount());
+    }
+
+    @Test
+    void dropOldestEvictsHeadWhenFull() {
+        buffer = buffer(HitDropPolicy.DROP_OLDEST, 0, 0, this::record);
+
+        assertTrue(buffer.offer(hit("/events/1")));
+        assertTrue(buffer.offer(hit("/events/2")));
+        assertTrue(buffer.offer(hit("/events/3")));
+        buffer.flush();
+
+        assertEquals(List.of("/events/2", "/events/3"), sent);
+        assertEquals(3, buffer.getQueuedCount());
+        assertEquals(1, buffer.getDroppedCount());
+    }
+
+    @Test
+    void blockWaitsForOfferTimeoutThenDrops() {
+        buffer = buffer(HitDropPolicy.BLOCK, 0, 0, this::record);
+        buffer.offer(hit("/events/1"));
+        buffer.offer(hit("/events/2"));
+
+        long start = System.nanoTime();
+        assertFalse(buffer.offer(hit("/events/3")));
+
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) >= 50);
+        assertEquals(1, buffer.getDroppedCount());
+    }
+
+    @Test
+    void failedBatchIsRetriedWithDoublingBackoff() {
+        AtomicInteger attempts = new AtomicInteger();
+        buffer = buffer(HitDropPolicy.DROP_NEWEST, 2, 20, batch -> {
+            if (attempts.incrementAndGet() <= 2) {
+                throw new IllegalStateException("stats-server недоступен");
+            }
+            record(batch);
+        });
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        buffer.bindTo(registry);
+        buffer.offer(hit("/events/1"));
+
+        long start = System.nanoTime();
+        buffer.flush();
+
+        // Паузы 20 и 40 мс
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) >= 60);
+        assertEquals(List.of("/events/1"), sent);
+        assertEquals(1, buffer.getFlushedCount());
+        assertEquals(0, buffer.getDroppedCount());
+        assertEquals(2, registry.get("stats.hits.retries").functionCounter().count());
+    }
+
+    @Test
+    void batchIsDroppedAfterLastRetry() {
+        AtomicInteger attempts = new AtomicInteger();
+        buffer = buffer(HitDropPolicy.DROP_NEWEST, 1, 1, batch -> {
+            attempts.incrementAndGet();
+            throw new IllegalStateException("stats-server недоступен");
+        });
+        buffer.offer(hit("/events/1"));
+        buffer.offer(hit("/events/2"));
+
+        buffer.flush();
+
+        assertEquals(2, attempts.get());
+        assertEquals(0, buffer.getFlushedCount());
+        assertEquals(2, buffer.getDroppedCount());
+    }
+
+    @Test
+    void closeFlushesPendingHits() {
+        buffer = buffer(HitDropPolicy.DROP_NEWEST, 0, 0, this::record);
+        buffer.offer(hit("/events/1"));
+        buffer.offer(hit("/events/2"));
+
+        buffer.close();
+
+        assertEquals(List.of("/events/1", "/events/2"), sent);
+        assertEquals(2, buffer.getFlushedCount());
+        assertEquals(0, buffer.getPendingCount());
+        buffer = null;
+    }
+
+    @Test
+    void fullBatchIsFlushedInBackground() throws InterruptedException {
+        buffer = new EndPointHitBuffer(10, 2, HOUR_MS, HitDropPolicy.DROP_NEWEST, 0, 0, 0, this::record);
+        buffer.offer(hit("/events/1"));
+        buffer.offer(hit("/events/2"));
+
+        for (int i = 0; i < 100 && sent.size() < 2; i++) {
+            TimeUnit.MILLISECONDS.sleep(10);
+        }
+        assertEquals(List.of("/events/1", "/events/2"), sent);
+    }
+
+    /**
+     * Буфер на два просмотра, пачка больше очереди, поэтому отправка только по flush и close
+     */
+    private static EndPointHitBuffer buffer(HitDropPolicy policy, int maxRetries, long retryBackoffMs,
+                                            Consumer<List<EndPointHitDto>> sender) {
+        return new EndPointHitBuffer(2, 100, HOUR_MS, policy, 50, maxRetries, retryBackoffMs, sender);
+    }
+
+    private void record(List<EndPointHitDto> batch) {
+        sent.addAll(batch.stream().map(EndPointHitDto::getUri).collect(Collectors.toList()));
+    }
+
+    private static EndPointHitDto hit(String uri) {
+        return EndPointHitDto.builder()
+                .app("ewm-main-service")
+                .uri(uri)
+                .ip("192.168.0.1")
+                .timestamp("2026-10-18 12:00:00")
+                .build();
+    }
+}
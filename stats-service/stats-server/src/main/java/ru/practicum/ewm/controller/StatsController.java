@@ -5,6 +5,7 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import ru.practicum.ewm.EndPointHitBatchResultDto;
 import ru.practicum.ewm.EndPointHitDto;
 import ru.practicum.ewm.ViewStatsDto;
 import ru.practicum.ewm.model.EndPointHit;
@@ -33,6 +34,19 @@ public class StatsController {
         return statsService.postEndPointHit(endPointHitDto);
     }
 
+    /**
+     * Пакетное создание EndPoint. Некорректные EndPoint отклоняются по одному, остальные сохраняются
+     *
+     * @param endPointHitDtos EndPoint
+     * @return Количество принятых и отклоненных EndPoint, принятые по пачкам
+     */
+    @PostMapping("/hits")
+    @ResponseStatus(HttpStatus.CREATED)
+    public EndPointHitBatchResultDto postEndPointHits(@RequestBody List<EndPointHitDto> endPointHitDtos) {
+        log.info("Пакетное создание EndPointHit, количество={}", endPointHitDtos.size());
+        return statsService.postEndPointHits(endPointHitDtos);
+    }
+
     /**
      * Вывод статистики по EndPoint
      *
@@ -40,14 +54,16 @@ public class StatsController {
      * @param end    Конец временного промежутка
      * @param uris   URI
      * @param unique Уникальные посещения
+     * @param approx Приближённый подсчёт уникальных посещений по HyperLogLog
      * @return Статистика посещения
      */
     @GetMapping("/stats")
     public List<ViewStatsDto> getViewStats(@RequestParam(name = "start") String start,
                                            @RequestParam(name = "end") String end,
                                            @RequestParam(name = "uris", required = false) String[] uris,
-                                           @RequestParam(name = "unique", defaultValue = "false") boolean unique) {
-        log.info("Вывод ViewStats start={}, end={}, uris={}, unique={}", start, end, uris, unique);
-        return statsService.getViewStats(start, end, uris, unique);
+                                           @RequestParam(name = "unique", defaultValue = "false") boolean unique,
+                                           @RequestParam(name = "approx", defaultValue = "false") boolean approx) {
+        log.info("Вывод ViewStats start={}, end={}, uris={}, unique={}, approx={}", start, end, uris, unique, approx);
+        return statsService.getViewStats(start, end, uris, unique, approx);
     }
 }
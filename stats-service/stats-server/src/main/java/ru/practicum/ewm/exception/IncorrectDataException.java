@@ -4,4 +4,8 @@ public class IncorrectDataException extends RuntimeException {
     public IncorrectDataException() {
         super("Некорректные даты");
     }
+
+    public IncorrectDataException(String message) {
+        super(message);
+    }
 }
@@ -0,0 +1,154 @@
+package ru.practicum.ewm.migration;
+
+import lombok.extern.slf4j.Slf4j;
+import org.flywaydb.core.api.MigrationVersion;
+import org.flywaydb.core.api.migration.Context;
+import org.flywaydb.core.api.migration.JavaMigration;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Перевод таблицы stats, созданной до партиционирования, на диапазонные партиции по time_create.
+ * Старая таблица подключается к партиционированной как партиция по умолчанию stats_legacy, затем её строки
+ * переносятся в помесячные партиции до начала текущего месяца или первой уже созданной партиции.
+ * Каждый месяц фиксируется отдельно, поэтому прерванная миграция при повторе продолжает с оставшихся строк.
+ * Оставшиеся строки переносятся в обычную партицию по умолчанию stats_default, откуда StatsPartitionManager
+ * забирает их при создании текущих партиций. После миграции удаление старых партиций покрывает и старые строки.
+ * <p>
+ * Версия 4 задаётся явно, а не именем класса вида V4__..., которое не проходит checkstyle.
+ */
+@Slf4j
+public class PartitionLegacyStats implements JavaMigration {
+    private static final String LEGACY = "stats_legacy";
+    private static final DateTimeFormatter NAME_FORMATTER = DateTimeFormatter.ofPattern("yyyyMMdd");
+    private static final Pattern LOWER_BOUND = Pattern.compile("FROM \\('([^']+)'\\)");
+
+    @Override
+    public MigrationVersion getVersion() {
+        return MigrationVersion.fromVersion("4");
+    }
+
+    @Override
+    public String getDescription() {
+        return "PartitionLegacyStats";
+    }
+
+    @Override
+    public Integer getChecksum() {
+        return null;
+    }
+
+    @Override
+    public boolean isUndo() {
+        return false;
+    }
+
+    @Override
+    public boolean isBaselineMigration() {
+        return false;
+    }
+
+    @Override
+    public boolean canExecuteInTransaction() {
+        return false;
+    }
+
+    @Override
+    public void migrate(Context context) {
+        SingleConnectionDataSource dataSource = new SingleConnectionDataSource(context.getConnection(), true);
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        TransactionTemplate transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        transactionTemplate.executeWithoutResult(status -> attachLegacy(jdbcTemplate));
+        if (!LEGACY.equals(defaultPartition(jdbcTemplate))) {
+            return;
+        }
+        LocalDateTime upper = upperBound(jdbcTemplate);
+        List<LocalDateTime> months = jdbcTemplate.queryForList("SELECT DISTINCT date_trunc('month', time_create) " +
+                "FROM " + LEGACY + " WHERE time_create < ? ORDER BY 1", LocalDateTime.class, upper);
+        for (LocalDateTime from : months) {
+            LocalDateTime to = from.plusMonths(1).isBefore(upper) ? from.plusMonths(1) : upper;
+            transactionTemplate.executeWithoutResult(status -> movePartition(jdbcTemplate, from, to));
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.execute("ALTER TABLE stats DETACH PARTITION " + LEGACY);
+            jdbcTemplate.execute("CREATE TABLE stats_default PARTITION OF stats DEFAULT");
+            int moved = jdbcTemplate.update("INSERT INTO stats (id, app, uri, ip, time_create) " +
+                    "SELECT id, app, uri, ip, time_create FROM " + LEGACY);
+            jdbcTemplate.execute("DROP TABLE " + LEGACY);
+            log.info("Таблица {} удалена, перенесено просмотров после {}: {}", LEGACY, upper, moved);
+        });
+    }
+
+    /**
+     * Подключение непартиционированной stats как партиции по умолчанию без переноса строк
+     */
+    private static void attachLegacy(JdbcTemplate jdbcTemplate) {
+        String kind = jdbcTemplate.queryForObject(
+                "SELECT relkind::text FROM pg_class WHERE oid = 'stats'::regclass", String.class);
+        if ("p".equals(kind)) {
+            if (defaultPartition(jdbcTemplate) == null) {
+                jdbcTemplate.execute("CREATE TABLE stats_default PARTITION OF stats DEFAULT");
+            }
+            return;
+        }
+        log.info("Таблица stats не партиционирована, подключение её как партиции по умолчанию");
+        jdbcTemplate.execute("ALTER TABLE stats RENAME TO " + LEGACY);
+        jdbcTemplate.execute("ALTER TABLE " + LEGACY + " ALTER COLUMN id DROP IDENTITY IF EXISTS");
+        jdbcTemplate.execute("CREATE SEQUENCE IF NOT EXISTS stats_id_seq");
+        jdbcTemplate.queryForObject("SELECT setval('stats_id_seq', coalesce(max(id), 0) + 1, false) " +
+                "FROM " + LEGACY, Long.class);
+        jdbcTemplate.execute("CREATE TABLE stats (" +
+                "id BIGINT NOT NULL DEFAULT nextval('stats_id_seq'), " +
+                "app VARCHAR(500) NOT NULL, " +
+                "uri VARCHAR(500) NOT NULL, " +
+                "ip VARCHAR(500) NOT NULL, " +
+                "time_create TIMESTAMP NOT NULL" +
+                ") PARTITION BY RANGE (time_create)");
+        jdbcTemplate.execute("ALTER TABLE stats ATTACH PARTITION " + LEGACY + " DEFAULT");
+    }
+
+    /**
+     * Начало текущего месяца или нижняя граница первой уже созданной партиции, если она раньше
+     */
+    private static LocalDateTime upperBound(JdbcTemplate jdbcTemplate) {
+        LocalDateTime upper = LocalDate.now().withDayOfMonth(1).atStartOfDay();
+        List<String> bounds = jdbcTemplate.queryForList("SELECT pg_get_expr(c.relpartbound, c.oid) " +
+                "FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid " +
+                "WHERE i.inhparent = 'stats'::regclass", String.class);
+        for (String bound : bounds) {
+            Matcher matcher = LOWER_BOUND.matcher(bound);
+            if (matcher.find()) {
+                LocalDateTime lower = LocalDateTime.parse(matcher.group(1).replace(' ', 'T'));
+                if (lower.isBefore(upper)) {
+                    upper = lower;
+                }
+            }
+        }
+        return upper;
+    }
+
+    private static void movePartition(JdbcTemplate jdbcTemplate, LocalDateTime from, LocalDateTime to) {
+        String name = "stats_p" + from.format(NAME_FORMATTER);
+        jdbcTemplate.execute("CREATE TABLE " + name + " (LIKE stats INCLUDING DEFAULTS)");
+        int moved = jdbcTemplate.update("WITH moved AS (DELETE FROM " + LEGACY +
+                " WHERE time_create >= ? AND time_create < ? RETURNING id, app, uri, ip, time_create) " +
+                "INSERT INTO " + name + " (id, app, uri, ip, time_create) SELECT * FROM moved", from, to);
+        jdbcTemplate.execute("ALTER TABLE stats ATTACH PARTITION " + name +
+                " FOR VALUES FROM ('" + from + "') TO ('" + to + "')");
+        log.info("Создана партиция {}, перенесено просмотров из {}: {}", name, LEGACY, moved);
+    }
+
+    private static String defaultPartition(JdbcTemplate jdbcTemplate) {
+        return jdbcTemplate.queryForObject("SELECT nullif(partdefid, 0::oid)::regclass::text " +
+                "FROM pg_partitioned_table WHERE partrelid = 'stats'::regclass", String.class);
+    }
+}
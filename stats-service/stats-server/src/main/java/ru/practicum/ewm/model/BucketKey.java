@@ -0,0 +1,34 @@
+package ru.practicum.ewm.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.Comparator;
+
+/**
+ * Ключ агрегата: бакет гранулярности и пара (app, uri).
+ * Порядок ключей задаёт порядок блокировки строк агрегатов при записи.
+ */
+@Data
+@AllArgsConstructor
+public class BucketKey implements Comparable<BucketKey> {
+    private static final Comparator<BucketKey> ORDER = Comparator
+            .comparing(BucketKey::getGranularity)
+            .thenComparing(BucketKey::getBucketStart)
+            .thenComparing(BucketKey::getApp)
+            .thenComparing(BucketKey::getUri);
+    private Granularity granularity;
+    private LocalDateTime bucketStart;
+    private String app;
+    private String uri;
+
+    public static BucketKey of(Granularity granularity, EndPointHit hit) {
+        return new BucketKey(granularity, granularity.truncate(hit.getTimestamp()), hit.getApp(), hit.getUri());
+    }
+
+    @Override
+    public int compareTo(BucketKey other) {
+        return ORDER.compare(this, other);
+    }
+}
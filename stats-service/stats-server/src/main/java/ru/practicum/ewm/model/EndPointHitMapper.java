@@ -1,20 +1,39 @@
 package ru.practicum.ewm.model;
 
 import ru.practicum.ewm.EndPointHitDto;
+import ru.practicum.ewm.exception.IncorrectDataException;
 
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
 
 public class EndPointHitMapper {
     private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
 
     public static EndPointHit toEndpointHit(EndPointHitDto endPointHitDto) {
-        String s = endPointHitDto.getTimestamp().replace('T',' ').substring(0, 19);
         return EndPointHit.builder()
                 .app(endPointHitDto.getApp())
                 .uri(endPointHitDto.getUri())
                 .ip(endPointHitDto.getIp())
-                .timestamp(LocalDateTime.parse(s, FORMATTER))
+                .timestamp(parseTimestamp(endPointHitDto.getTimestamp()))
                 .build();
     }
+
+    /**
+     * Время просмотра в формате yyyy-MM-dd HH:mm:ss или ISO без зоны, доли секунды отбрасываются
+     *
+     * @param timestamp Время просмотра
+     * @return Время просмотра
+     * @throws IncorrectDataException если время не разбирается
+     */
+    public static LocalDateTime parseTimestamp(String timestamp) {
+        if (timestamp == null || timestamp.length() < 19) {
+            throw new IncorrectDataException("Некорректное время просмотра: " + timestamp);
+        }
+        try {
+            return LocalDateTime.parse(timestamp.replace('T', ' ').substring(0, 19), FORMATTER);
+        } catch (DateTimeParseException e) {
+            throw new IncorrectDataException("Некорректное время просмотра: " + timestamp);
+        }
+    }
 }
@@ -0,0 +1,55 @@
+package ru.practicum.ewm.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Полуинтервал [from, to), который читается из агрегатов указанной гранулярности
+ * либо из сырых просмотров, если granularity = null
+ */
+@Data
+@AllArgsConstructor
+public class TimeSegment {
+    private Granularity granularity;
+    private LocalDateTime from;
+    private LocalDateTime to;
+
+    /**
+     * Разбиение интервала на самые крупные целые бакеты и рваные края
+     *
+     * @param from   Начало интервала включительно
+     * @param to     Конец интервала не включительно
+     * @param levels Гранулярности от крупной к мелкой
+     * @return Отрезки, покрывающие интервал без пересечений
+     */
+    public static List<TimeSegment> split(LocalDateTime from, LocalDateTime to, List<Granularity> levels) {
+        List<TimeSegment> segments = new ArrayList<>();
+        split(from, to, levels, 0, segments);
+        return segments;
+    }
+
+    private static void split(LocalDateTime from, LocalDateTime to, List<Granularity> levels, int level,
+                              List<TimeSegment> segments) {
+        if (!from.isBefore(to)) {
+            return;
+        }
+        if (level == levels.size()) {
+            segments.add(new TimeSegment(null, from, to));
+            return;
+        }
+        Granularity granularity = levels.get(level);
+        LocalDateTime alignedFrom = granularity.ceil(from);
+        LocalDateTime alignedTo = granularity.truncate(to);
+        if (!alignedFrom.isBefore(alignedTo)) {
+            split(from, to, levels, level + 1, segments);
+            return;
+        }
+        split(from, alignedFrom, levels, level + 1, segments);
+        segments.add(new TimeSegment(granularity, alignedFrom, alignedTo));
+        split(alignedTo, to, levels, level + 1, segments);
+    }
+}
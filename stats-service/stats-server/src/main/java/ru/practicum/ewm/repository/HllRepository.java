@@ -0,0 +1,119 @@
+package ru.practicum.ewm.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+import ru.practicum.ewm.model.BucketKey;
+import ru.practicum.ewm.model.Granularity;
+import ru.practicum.ewm.model.HyperLogLog;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.SortedMap;
+
+@Repository
+@RequiredArgsConstructor
+public class HllRepository {
+    private static final String KEY_CONDITION = "granularity = ? AND bucket_start = ? AND app = ? AND uri = ? " +
+            "AND precision = ?";
+    private static final String INSERT_SKETCH = "INSERT INTO stats_hll " +
+            "(granularity, bucket_start, app, uri, precision, sketch) VALUES (?, ?, ?, ?, ?, ?) " +
+            "ON CONFLICT DO NOTHING";
+    private static final String LOCK_SKETCH = "SELECT sketch FROM stats_hll WHERE " + KEY_CONDITION + " FOR UPDATE";
+    private static final String UPDATE_SKETCH = "UPDATE stats_hll SET sketch = ? WHERE " + KEY_CONDITION;
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+
+    /**
+     * Объединение скетчей с сохранёнными. Должно вызываться в транзакции:
+     * существующая строка блокируется на время чтения-объединения-записи.
+     * Вызывается сбросом скетчей из памяти и построением скетчей, а не каждым приёмом просмотров.
+     *
+     * @param sketches Скетчи по ключам
+     */
+    public void merge(SortedMap<BucketKey, HyperLogLog> sketches) {
+        sketches.forEach((key, sketch) -> {
+            Object[] keyArgs = {key.getGranularity().name(), Timestamp.valueOf(key.getBucketStart()),
+                    key.getApp(), key.getUri(), sketch.getPrecision()};
+            if (jdbcTemplate.update(INSERT_SKETCH, keyArgs[0], keyArgs[1], keyArgs[2], keyArgs[3], keyArgs[4],
+                    sketch.toBytes()) > 0) {
+                return;
+            }
+            byte[] stored = jdbcTemplate.queryForObject(LOCK_SKETCH, byte[].class, keyArgs);
+            HyperLogLog merged = HyperLogLog.fromBytes(sketch.getPrecision(), stored);
+            merged.merge(sketch);
+            jdbcTemplate.update(UPDATE_SKETCH, merged.toBytes(), keyArgs[0], keyArgs[1], keyArgs[2], keyArgs[3],
+                    keyArgs[4]);
+        });
+    }
+
+    /**
+     * Скетчи бакетов гранулярности, начинающихся в [from, to)
+     *
+     * @param granularity Гранулярность
+     * @param from        Начало интервала включительно
+     * @param to          Конец интервала не включительно
+     * @param uris        URI, null - все
+     * @param precision   Точность скетчей
+     * @param consumer    Получатель скетчей
+     */
+    public void forEachSketch(Granularity granularity, LocalDateTime from, LocalDateTime to, List<String> uris,
+                              int precision, SketchConsumer consumer) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("granularity", granularity.name())
+                .addValue("precision", precision)
+                .addValue("from", Timestamp.valueOf(from))
+                .addValue("to", Timestamp.valueOf(to));
+        String sql = "SELECT app, uri, sketch FROM stats_hll " +
+                "WHERE granularity = :granularity AND precision = :precision " +
+                "AND bucket_start >= :from AND bucket_start < :to ";
+        if (uris != null) {
+            sql += "AND uri IN (:uris)";
+            params.addValue("uris", uris);
+        }
+        namedJdbcTemplate.query(sql, params, rs -> {
+            consumer.accept(rs.getString("app"), rs.getString("uri"),
+                    HyperLogLog.fromBytes(precision, rs.getBytes("sketch")));
+        });
+    }
+
+    /**
+     * Завершено ли построение скетчей указанной точности по сырым просмотрам
+     */
+    public boolean isBackfillCompleted(int precision) {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                "SELECT EXISTS (SELECT 1 FROM stats_hll_backfill WHERE precision = ? AND completed)",
+                Boolean.class, precision));
+    }
+
+    /**
+     * Первые сутки, скетчи которых ещё не построены по сырым просмотрам
+     */
+    public Optional<LocalDate> findBackfilledUntil(int precision) {
+        return jdbcTemplate.query("SELECT backfilled_until FROM stats_hll_backfill WHERE precision = ?",
+                (rs, rowNum) -> rs.getObject("backfilled_until", LocalDate.class), precision).stream().findFirst();
+    }
+
+    /**
+     * Отметка о прогрессе построения скетчей. Должна вызываться в транзакции объединения скетчей тех же суток.
+     *
+     * @param precision       Точность скетчей
+     * @param backfilledUntil Первые сутки, скетчи которых ещё не построены
+     * @param completed       Построение завершено
+     */
+    public void saveBackfillProgress(int precision, LocalDate backfilledUntil, boolean completed) {
+        jdbcTemplate.update("INSERT INTO stats_hll_backfill (precision, backfilled_until, completed) " +
+                "VALUES (?, ?, ?) ON CONFLICT (precision) " +
+                "DO UPDATE SET backfilled_until = EXCLUDED.backfilled_until, completed = EXCLUDED.completed",
+                precision, backfilledUntil, completed);
+    }
+
+    public interface SketchConsumer {
+        void accept(String app, String uri, HyperLogLog sketch);
+    }
+}
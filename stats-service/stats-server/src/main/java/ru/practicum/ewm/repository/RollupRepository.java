@@ -0,0 +1,96 @@
+package ru.practicum.ewm.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+import ru.practicum.ewm.ViewStatsDto;
+import ru.practicum.ewm.model.BucketKey;
+import ru.practicum.ewm.model.EndPointHit;
+import ru.practicum.ewm.model.Granularity;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+@Repository
+@RequiredArgsConstructor
+public class RollupRepository {
+    private static final String UPSERT_ROLLUP = "INSERT INTO stats_rollup (granularity, bucket_start, app, uri, hits) " +
+            "VALUES (?, ?, ?, ?, ?) " +
+            "ON CONFLICT (granularity, bucket_start, app, uri) " +
+            "DO UPDATE SET hits = stats_rollup.hits + EXCLUDED.hits";
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+
+    /**
+     * Увеличение счётчиков всех гранулярностей на принятые просмотры
+     *
+     * @param hits Просмотры
+     */
+    public void increment(List<EndPointHit> hits) {
+        // Ключи сортируются, чтобы конкурентные транзакции блокировали строки в одном порядке
+        Map<BucketKey, Long> counts = new TreeMap<>();
+        for (EndPointHit hit : hits) {
+            for (Granularity granularity : Granularity.values()) {
+                counts.merge(BucketKey.of(granularity, hit), 1L, Long::sum);
+            }
+        }
+        List<Map.Entry<BucketKey, Long>> rows = new ArrayList<>(counts.entrySet());
+        jdbcTemplate.batchUpdate(UPSERT_ROLLUP, rows, rows.size(), (ps, row) -> {
+            ps.setString(1, row.getKey().getGranularity().name());
+            ps.setTimestamp(2, Timestamp.valueOf(row.getKey().getBucketStart()));
+            ps.setString(3, row.getKey().getApp());
+            ps.setString(4, row.getKey().getUri());
+            ps.setLong(5, row.getValue());
+        });
+    }
+
+    /**
+     * Сумма просмотров по бакетам гранулярности, начинающимся в [from, to)
+     *
+     * @param granularity Гранулярность
+     * @param from        Начало интервала включительно
+     * @param to          Конец интервала не включительно
+     * @param uris        URI, null - все
+     * @return Статистика посещения
+     */
+    public List<ViewStatsDto> sumHits(Granularity granularity, LocalDateTime from, LocalDateTime to,
+                                      List<String> uris) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("granularity", granularity.name())
+                .addValue("from", Timestamp.valueOf(from))
+                .addValue("to", Timestamp.valueOf(to));
+        String sql = "SELECT app, uri, sum(hits) AS hits FROM stats_rollup " +
+                "WHERE granularity = :granularity AND bucket_start >= :from AND bucket_start < :to ";
+        if (uris != null) {
+            sql += "AND uri IN (:uris) ";
+            params.addValue("uris", uris);
+        }
+        sql += "GROUP BY app, uri";
+        return namedJdbcTemplate.query(sql, params, (rs, rowNum) ->
+                new ViewStatsDto(rs.getString("app"), rs.getString("uri"), rs.getLong("hits")));
+    }
+
+    /**
+     * Обход поминутных агрегатов, начиная с момента времени
+     *
+     * @param from     Начало интервала включительно
+     * @param consumer Получатель агрегатов
+     */
+    public void forEachMinute(LocalDateTime from, MinuteConsumer consumer) {
+        jdbcTemplate.query("SELECT app, uri, bucket_start, hits FROM stats_rollup " +
+                "WHERE granularity = ? AND bucket_start >= ?", rs -> {
+            consumer.accept(rs.getString("app"), rs.getString("uri"),
+                    rs.getTimestamp("bucket_start").toLocalDateTime(), rs.getLong("hits"));
+        }, Granularity.MINUTE.name(), Timestamp.valueOf(from));
+    }
+
+    public interface MinuteConsumer {
+        void accept(String app, String uri, LocalDateTime bucketStart, long hits);
+    }
+}
@@ -0,0 +1,111 @@
+package ru.practicum.ewm.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+import ru.practicum.ewm.ViewStatsDto;
+import ru.practicum.ewm.model.EndPointHit;
+
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+@Repository
+@RequiredArgsConstructor
+public class StatsJdbcRepository {
+    private static final String INSERT_HIT = "INSERT INTO stats (app, uri, ip, time_create) VALUES (?, ?, ?, ?)";
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+
+    /**
+     * Пакетная вставка просмотров
+     *
+     * @param hits      Просмотры
+     * @param batchSize Размер пачки
+     * @return Количество вставленных строк по каждой пачке
+     */
+    public List<Integer> insertAll(List<EndPointHit> hits, int batchSize) {
+        int[][] result = jdbcTemplate.batchUpdate(INSERT_HIT, hits, batchSize, (ps, hit) -> {
+            ps.setString(1, hit.getApp());
+            ps.setString(2, hit.getUri());
+            ps.setString(3, hit.getIp());
+            ps.setTimestamp(4, Timestamp.valueOf(hit.getTimestamp()));
+        });
+        List<Integer> accepted = new ArrayList<>(result.length);
+        for (int[] batch : result) {
+            int count = 0;
+            for (int rows : batch) {
+                if (rows > 0 || rows == Statement.SUCCESS_NO_INFO) {
+                    count++;
+                }
+            }
+            accepted.add(count);
+        }
+        return accepted;
+    }
+
+    /**
+     * Количество сырых просмотров в [from, to)
+     *
+     * @param from Начало интервала включительно
+     * @param to   Конец интервала не включительно
+     * @param uris URI, null - все
+     * @return Статистика посещения
+     */
+    public List<ViewStatsDto> countHits(LocalDateTime from, LocalDateTime to, List<String> uris) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("from", Timestamp.valueOf(from))
+                .addValue("to", Timestamp.valueOf(to));
+        String sql = "SELECT app, uri, count(*) AS hits FROM stats " +
+                "WHERE time_create >= :from AND time_create < :to ";
+        if (uris != null) {
+            sql += "AND uri IN (:uris) ";
+            params.addValue("uris", uris);
+        }
+        sql += "GROUP BY app, uri";
+        return namedJdbcTemplate.query(sql, params, (rs, rowNum) ->
+                new ViewStatsDto(rs.getString("app"), rs.getString("uri"), rs.getLong("hits")));
+    }
+
+    /**
+     * Обход сырых просмотров в [from, to) без загрузки их в память целиком
+     *
+     * @param from     Начало интервала включительно
+     * @param to       Конец интервала не включительно
+     * @param uris     URI, null - все
+     * @param consumer Получатель просмотров
+     */
+    public void forEachHit(LocalDateTime from, LocalDateTime to, List<String> uris, Consumer<EndPointHit> consumer) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("from", Timestamp.valueOf(from))
+                .addValue("to", Timestamp.valueOf(to));
+        String sql = "SELECT app, uri, ip, time_create FROM stats " +
+                "WHERE time_create >= :from AND time_create < :to ";
+        if (uris != null) {
+            sql += "AND uri IN (:uris)";
+            params.addValue("uris", uris);
+        }
+        namedJdbcTemplate.query(sql, params, rs -> {
+            consumer.accept(EndPointHit.builder()
+                    .app(rs.getString("app"))
+                    .uri(rs.getString("uri"))
+                    .ip(rs.getString("ip"))
+                    .timestamp(rs.getTimestamp("time_create").toLocalDateTime())
+                    .build());
+        });
+    }
+
+    /**
+     * Время самого раннего просмотра
+     */
+    public Optional<LocalDateTime> findFirstHitTime() {
+        Timestamp first = jdbcTemplate.queryForObject("SELECT min(time_create) FROM stats", Timestamp.class);
+        return Optional.ofNullable(first).map(Timestamp::toLocalDateTime);
+    }
+}
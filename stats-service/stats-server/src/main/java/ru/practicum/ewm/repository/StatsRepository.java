@@ -16,24 +16,10 @@ public interface StatsRepository extends JpaRepository<EndPointHit, Long> {
             "order by count(s.ip) desc ")
     List<ViewStatsDto> getStatsUriAndUnique(LocalDateTime start, LocalDateTime end, List<String> uris);
 
-    @Query("select new ru.practicum.ewm.ViewStatsDto(s.app, s.uri, count(s.ip)) " +
-            "from EndPointHit as s " +
-            "where s.uri in (?3) and s.timestamp between ?1 and ?2 " +
-            "group by s.app, s.uri " +
-            "order by count(s.ip) desc ")
-    List<ViewStatsDto> getStatsUri(LocalDateTime start, LocalDateTime end, List<String> uris);
-
     @Query("select new ru.practicum.ewm.ViewStatsDto(s.app, s.uri, count(distinct s.ip)) " +
             "from EndPointHit as s " +
             "where s.timestamp between ?1 and ?2 " +
             "group by s.app, s.uri " +
             "order by count(s.ip) desc ")
     List<ViewStatsDto> getStatsUnique(LocalDateTime start, LocalDateTime end);
-
-    @Query("select new ru.practicum.ewm.ViewStatsDto(s.app, s.uri, count(s.ip)) " +
-            "from EndPointHit as s " +
-            "where s.timestamp between ?1 and ?2 " +
-            "group by s.app, s.uri " +
-            "order by count(s.ip) desc ")
-    List<ViewStatsDto> getStats(LocalDateTime start, LocalDateTime end);
 }
\ No newline at end of file
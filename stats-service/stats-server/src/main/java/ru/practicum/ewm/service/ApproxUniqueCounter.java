@@ -0,0 +1,234 @@
+package ru.practicum.ewm.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.ewm.ViewStatsDto;
+import ru.practicum.ewm.model.BucketKey;
+import ru.practicum.ewm.model.EndPointHit;
+import ru.practicum.ewm.model.Granularity;
+import ru.practicum.ewm.model.HyperLogLog;
+import ru.practicum.ewm.model.TimeSegment;
+import ru.practicum.ewm.repository.HllRepository;
+import ru.practicum.ewm.repository.StatsJdbcRepository;
+
+import javax.annotation.PreDestroy;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
+
+/**
+ * Приближённый подсчёт уникальных посетителей по скетчам HyperLogLog,
+ * которые хранятся для часовых и суточных бакетов (app, uri).
+ * Стандартная ошибка оценки 1.04 / sqrt(2^stats.hll.precision).
+ * <p>
+ * Скетчи принятых просмотров копятся в памяти и сбрасываются в stats_hll раз в stats.hll.flush-interval-ms
+ * одной транзакцией, поэтому приём просмотров не блокирует строки скетчей горячих URI.
+ * Этот экземпляр учитывает несброшенные скетчи при подсчёте сразу, другие экземпляры видят их после сброса.
+ * При аварийной остановке теряются скетчи за последний интервал: approx=true за него занижается,
+ * сырые просмотры и остальная статистика не страдают.
+ */
+@Slf4j
+@Service
+public class ApproxUniqueCounter {
+    private static final List<Granularity> SKETCH_LEVELS = List.of(Granularity.DAY, Granularity.HOUR);
+    private final HllRepository hllRepository;
+    private final StatsJdbcRepository statsJdbcRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int precision;
+    private final boolean backfillOnStartup;
+    /**
+     * Писатели добавляют в pending под блокировкой чтения, сброс подменяет pending под блокировкой записи
+     */
+    private final ReadWriteLock pendingLock = new ReentrantReadWriteLock();
+    private volatile Map<BucketKey, HyperLogLog> pending = new ConcurrentHashMap<>();
+    private volatile Map<BucketKey, HyperLogLog> flushing = Map.of();
+
+    public ApproxUniqueCounter(HllRepository hllRepository,
+                               StatsJdbcRepository statsJdbcRepository,
+                               TransactionTemplate transactionTemplate,
+                               @Value("${stats.hll.precision:12}") int precision,
+                               @Value("${stats.hll.backfill-on-startup:true}") boolean backfillOnStartup) {
+        this.hllRepository = hllRepository;
+        this.statsJdbcRepository = statsJdbcRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.precision = precision;
+        this.backfillOnStartup = backfillOnStartup;
+    }
+
+    /**
+     * Добавление IP просмотров в скетчи в памяти после коммита транзакции, в которой они сохранены
+     *
+     * @param hits Просмотры
+     */
+    public void add(List<EndPointHit> hits) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    collect(hits);
+                }
+            });
+        } else {
+            collect(hits);
+        }
+    }
+
+    /**
+     * Сброс накопленных скетчей в stats_hll. При ошибке скетчи возвращаются в память до следующего сброса.
+     * Объединение скетчей идемпотентно, поэтому скетч, видимый одновременно в памяти и в БД, не учитывается дважды.
+     */
+    @PreDestroy
+    @Scheduled(fixedDelayString = "${stats.hll.flush-interval-ms:5000}")
+    public synchronized void flush() {
+        Map<BucketKey, HyperLogLog> drained;
+        pendingLock.writeLock().lock();
+        try {
+            if (pending.isEmpty()) {
+                return;
+            }
+            drained = pending;
+            flushing = drained;
+            pending = new ConcurrentHashMap<>();
+        } finally {
+            pendingLock.writeLock().unlock();
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> hllRepository.merge(new TreeMap<>(drained)));
+        } catch (RuntimeException e) {
+            log.warn("Не удалось сохранить скетчи HyperLogLog: {}, повтор при следующем сбросе", e.getMessage());
+            mergePending(drained);
+        } finally {
+            flushing = Map.of();
+        }
+    }
+
+    /**
+     * Оценка числа уникальных IP: скетчи целых бакетов объединяются, края добираются из сырых просмотров
+     *
+     * @param from Начало интервала включительно
+     * @param to   Конец интервала не включительно
+     * @param uris URI, null - все
+     * @return Статистика посещения
+     */
+    public List<ViewStatsDto> countUnique(LocalDateTime from, LocalDateTime to, List<String> uris) {
+        Map<String, ViewStatsDto> keys = new HashMap<>();
+        Map<String, HyperLogLog> sketches = new HashMap<>();
+        for (TimeSegment segment : TimeSegment.split(from, to, SKETCH_LEVELS)) {
+            if (segment.getGranularity() == null) {
+                statsJdbcRepository.forEachHit(segment.getFrom(), segment.getTo(), uris, hit ->
+                        sketchFor(keys, sketches, hit.getApp(), hit.getUri()).add(hit.getIp()));
+            } else {
+                hllRepository.forEachSketch(segment.getGranularity(), segment.getFrom(), segment.getTo(), uris,
+                        precision, (app, uri, sketch) -> sketchFor(keys, sketches, app, uri).merge(sketch));
+                Set<String> uriSet = uris == null ? null : new HashSet<>(uris);
+                for (Map<BucketKey, HyperLogLog> memory : List.of(flushing, pending)) {
+                    memory.keySet().stream()
+                            .filter(key -> key.getGranularity() == segment.getGranularity()
+                                    && !key.getBucketStart().isBefore(segment.getFrom())
+                                    && key.getBucketStart().isBefore(segment.getTo())
+                                    && (uriSet == null || uriSet.contains(key.getUri())))
+                            .forEach(key -> mergeFrom(memory, key,
+                                    sketchFor(keys, sketches, key.getApp(), key.getUri())));
+                }
+            }
+        }
+        return keys.entrySet().stream()
+                .map(entry -> new ViewStatsDto(entry.getValue().getApp(), entry.getValue().getUri(),
+                        sketches.get(entry.getKey()).estimate()))
+                .sorted(Comparator.comparing(ViewStatsDto::getHits).reversed())
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Построение скетчей по уже сохранённым просмотрам, пока для текущей точности не записана отметка
+     * о завершении. Каждые сутки фиксируются вместе с отметкой о прогрессе, поэтому прерванное построение
+     * продолжается с первых несобранных суток, а отметка о завершении пишется в транзакции последних суток.
+     * Добавление одного и того же IP в скетч идемпотентно, поэтому параллельный приём просмотров
+     * не приводит к двойному учёту.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfill() {
+        if (!backfillOnStartup || hllRepository.isBackfillCompleted(precision)) {
+            return;
+        }
+        LocalDate end = LocalDate.now().plusDays(1);
+        LocalDate start = hllRepository.findBackfilledUntil(precision)
+                .or(() -> statsJdbcRepository.findFirstHitTime().map(LocalDateTime::toLocalDate))
+                .orElse(end);
+        if (!start.isBefore(end)) {
+            transactionTemplate.executeWithoutResult(status ->
+                    hllRepository.saveBackfillProgress(precision, end, true));
+            return;
+        }
+        log.info("Построение скетчей HyperLogLog точности {} с {}", precision, start);
+        for (LocalDate day = start; day.isBefore(end); day = day.plusDays(1)) {
+            LocalDate next = day.plusDays(1);
+            SortedMap<BucketKey, HyperLogLog> sketches = new TreeMap<>();
+            statsJdbcRepository.forEachHit(day.atStartOfDay(), next.atStartOfDay(), null,
+                    hit -> addTo(sketches, hit));
+            transactionTemplate.executeWithoutResult(status -> {
+                hllRepository.merge(sketches);
+                hllRepository.saveBackfillProgress(precision, next, !next.isBefore(end));
+            });
+        }
+        log.info("Построение скетчей HyperLogLog завершено");
+    }
+
+    private void collect(List<EndPointHit> hits) {
+        Map<BucketKey, HyperLogLog> sketches = new HashMap<>();
+        hits.forEach(hit -> addTo(sketches, hit));
+        mergePending(sketches);
+    }
+
+    private void mergePending(Map<BucketKey, HyperLogLog> sketches) {
+        pendingLock.readLock().lock();
+        try {
+            // Объединение выполняется под блокировкой ключа в ConcurrentHashMap, как и чтение в mergeFrom
+            sketches.forEach((key, sketch) -> pending.merge(key, sketch, (stored, added) -> {
+                stored.merge(added);
+                return stored;
+            }));
+        } finally {
+            pendingLock.readLock().unlock();
+        }
+    }
+
+    private static void mergeFrom(Map<BucketKey, HyperLogLog> memory, BucketKey key, HyperLogLog target) {
+        memory.computeIfPresent(key, (k, sketch) -> {
+            target.merge(sketch);
+            return sketch;
+        });
+    }
+
+    private void addTo(Map<BucketKey, HyperLogLog> sketches, EndPointHit hit) {
+        for (Granularity granularity : SKETCH_LEVELS) {
+            sketches.computeIfAbsent(BucketKey.of(granularity, hit), key -> new HyperLogLog(precision))
+                    .add(hit.getIp());
+        }
+    }
+
+    private HyperLogLog sketchFor(Map<String, ViewStatsDto> keys, Map<String, HyperLogLog> sketches,
+                                  String app, String uri) {
+        String key = app + '\u0000' + uri;
+        keys.computeIfAbsent(key, k -> new ViewStatsDto(app, uri, 0L));
+        return sketches.computeIfAbsent(key, k -> new HyperLogLog(precision));
+    }
+}
@@ -0,0 +1,301 @@
+package ru.practicum.ewm.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.ewm.ViewStatsDto;
+import ru.practicum.ewm.model.EndPointHit;
+import ru.practicum.ewm.repository.RollupRepository;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Поминутные счётчики просмотров последних window-minutes минут по URI в памяти.
+ * Заполняются из поминутных агрегатов при старте и обновляются после коммита приёма просмотров.
+ * <p>
+ * Память полна для URI начиная с минуты floor: счётчик, вытесненный из памяти, поднимает floor
+ * за свою последнюю минуту, поэтому отсутствие URI в памяти означает отсутствие просмотров после floor.
+ */
+@Slf4j
+@Component
+public class HotUriCounters implements InitializingBean {
+    private static final int FUTURE_SLACK_MINUTES = 2;
+    private final RollupRepository rollupRepository;
+    private final boolean enabled;
+    private final int windowMinutes;
+    private final int maxUris;
+    private final Map<String, UriCounter> counters = new ConcurrentHashMap<>();
+    private volatile long floor;
+
+    public HotUriCounters(RollupRepository rollupRepository,
+                          @Value("${stats.hot.enabled:true}") boolean enabled,
+                          @Value("${stats.hot.window-minutes:180}") int windowMinutes,
+                          @Value("${stats.hot.max-uris:5000}") int maxUris) {
+        this.rollupRepository = rollupRepository;
+        this.enabled = enabled;
+        this.windowMinutes = windowMinutes;
+        this.maxUris = maxUris;
+    }
+
+    /**
+     * Заполнение счётчиков из поминутных агрегатов за окно
+     */
+    @Override
+    public void afterPropertiesSet() {
+        if (!enabled) {
+            return;
+        }
+        long now = toMinute(LocalDateTime.now());
+        floor = now - windowMinutes + 1;
+        Map<String, List<ViewStatsBucket>> byUri = new HashMap<>();
+        rollupRepository.forEachMinute(fromMinute(floor), (app, uri, bucketStart, hits) ->
+                byUri.computeIfAbsent(uri, key -> new ArrayList<>())
+                        .add(new ViewStatsBucket(app, toMinute(bucketStart), hits)));
+        List<Map.Entry<String, List<ViewStatsBucket>>> uris = new ArrayList<>(byUri.entrySet());
+        uris.sort(Comparator.comparingLong((Map.Entry<String, List<ViewStatsBucket>> entry) ->
+                lastMinute(entry.getValue())).reversed());
+        for (int i = 0; i < uris.size(); i++) {
+            List<ViewStatsBucket> buckets = uris.get(i).getValue();
+            if (i >= maxUris) {
+                floor = Math.max(floor, lastMinute(buckets) + 1);
+                continue;
+            }
+            UriCounter counter = new UriCounter(floor);
+            buckets.forEach(bucket -> counter.add(bucket.app, bucket.minute, bucket.hits));
+            counters.put(uris.get(i).getKey(), counter);
+        }
+        log.info("Счётчики горячих URI заполнены: {} URI за {} минут", counters.size(), windowMinutes);
+    }
+
+    /**
+     * Учёт просмотров после коммита транзакции, в которой они сохранены
+     *
+     * @param hits Просмотры
+     */
+    public void record(List<EndPointHit> hits) {
+        if (!enabled) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    hits.forEach(HotUriCounters.this::record);
+                }
+            });
+        } else {
+            hits.forEach(this::record);
+        }
+    }
+
+    /**
+     * Полуинтервал минут внутри [from, to), который можно посчитать из памяти для указанных URI
+     *
+     * @param from Начало интервала включительно
+     * @param to   Конец интервала не включительно
+     * @param uris URI
+     * @return Границы интервала из памяти, если он не пуст
+     */
+    public Optional<LocalDateTime[]> servableRange(LocalDateTime from, LocalDateTime to, List<String> uris) {
+        if (!enabled) {
+            return Optional.empty();
+        }
+        long now = toMinute(LocalDateTime.now());
+        long start = Math.max(Math.max(ceilMinute(from), floor), now - windowMinutes + 1);
+        long end = Math.min(toMinute(to), now + 1);
+        for (String uri : uris) {
+            UriCounter counter = counters.get(uri);
+            if (counter != null) {
+                start = Math.max(start, counter.coveredFrom);
+            }
+        }
+        return start < end ? Optional.of(new LocalDateTime[]{fromMinute(start), fromMinute(end)}) : Optional.empty();
+    }
+
+    /**
+     * Сумма просмотров по минутам [from, to), полученным из servableRange
+     *
+     * @param from Начало интервала, кратное минуте
+     * @param to   Конец интервала, кратный минуте
+     * @param uris URI
+     * @return Статистика посещения
+     */
+    public List<ViewStatsDto> sum(LocalDateTime from, LocalDateTime to, List<String> uris) {
+        long start = toMinute(from);
+        long end = toMinute(to);
+        List<ViewStatsDto> stats = new ArrayList<>();
+        for (String uri : uris) {
+            UriCounter counter = counters.get(uri);
+            if (counter == null) {
+                continue;
+            }
+            counter.apps.forEach((app, ring) -> {
+                long hits = ring.sum(start, end);
+                if (hits > 0) {
+                    stats.add(new ViewStatsDto(app, uri, hits));
+                }
+            });
+        }
+        return stats;
+    }
+
+    /**
+     * Вытеснение URI без просмотров в окне и самых холодных URI сверх max-uris
+     */
+    @Scheduled(fixedDelayString = "${stats.hot.sweep-interval-ms:60000}")
+    public void sweep() {
+        if (!enabled) {
+            return;
+        }
+        long windowStart = toMinute(LocalDateTime.now()) - windowMinutes + 1;
+        counters.forEach((uri, counter) -> {
+            if (counter.lastHitMinute < windowStart) {
+                evict(uri, counter);
+            }
+        });
+        int excess = counters.size() - maxUris;
+        if (excess > 0) {
+            // Вытесняется с запасом, чтобы не сортировать все счётчики на каждый новый URI
+            counters.entrySet().stream()
+                    .sorted(Comparator.comparingLong(entry -> entry.getValue().lastHitMinute))
+                    .limit(excess + maxUris / 10)
+                    .forEach(entry -> evict(entry.getKey(), entry.getValue()));
+        }
+    }
+
+    private void record(EndPointHit hit) {
+        long now = toMinute(LocalDateTime.now());
+        long minute = toMinute(hit.getTimestamp());
+        if (minute <= now - windowMinutes) {
+            return;
+        }
+        if (minute > now + FUTURE_SLACK_MINUTES) {
+            raiseFloor(minute + 1);
+            UriCounter stale = counters.get(hit.getUri());
+            if (stale != null) {
+                evict(hit.getUri(), stale);
+            }
+            return;
+        }
+        UriCounter counter = counters.computeIfAbsent(hit.getUri(), uri -> new UriCounter(floor));
+        counter.add(hit.getApp(), minute, 1);
+        if (counter.evicted) {
+            raiseFloor(minute + 1);
+        }
+        if (counters.size() > maxUris) {
+            sweep();
+        }
+    }
+
+    private void evict(String uri, UriCounter counter) {
+        // Флаг выставляется до чтения lastHitMinute: запись, не попавшая в lastHitMinute, увидит флаг сама
+        counter.evicted = true;
+        raiseFloor(counter.lastHitMinute + 1);
+        counters.remove(uri, counter);
+    }
+
+    private synchronized void raiseFloor(long minute) {
+        if (minute > floor) {
+            floor = minute;
+        }
+    }
+
+    private long ceilMinute(LocalDateTime time) {
+        long minute = toMinute(time);
+        return fromMinute(minute).equals(time) ? minute : minute + 1;
+    }
+
+    private static long lastMinute(List<ViewStatsBucket> buckets) {
+        return buckets.stream().mapToLong(bucket -> bucket.minute).max().orElse(Long.MIN_VALUE);
+    }
+
+    private static long toMinute(LocalDateTime time) {
+        return Math.floorDiv(time.toEpochSecond(ZoneOffset.UTC), 60);
+    }
+
+    private static LocalDateTime fromMinute(long minute) {
+        return LocalDateTime.ofEpochSecond(minute * 60, 0, ZoneOffset.UTC);
+    }
+
+    private class UriCounter {
+        private final long coveredFrom;
+        private final Map<String, MinuteRing> apps = new ConcurrentHashMap<>();
+        private volatile long lastHitMinute = Long.MIN_VALUE;
+        private volatile boolean evicted;
+
+        UriCounter(long coveredFrom) {
+            this.coveredFrom = coveredFrom;
+        }
+
+        void add(String app, long minute, long hits) {
+            lastHitMinute = Math.max(lastHitMinute, minute);
+            apps.computeIfAbsent(app, key -> new MinuteRing(windowMinutes + FUTURE_SLACK_MINUTES + 1))
+                    .add(minute, hits);
+        }
+    }
+
+    /**
+     * Кольцо поминутных счётчиков: слот переиспользуется, когда в него попадает новая минута
+     */
+    private static class MinuteRing {
+        private final AtomicLongArray minutes;
+        private final AtomicLongArray hits;
+
+        MinuteRing(int size) {
+            minutes = new AtomicLongArray(size);
+            hits = new AtomicLongArray(size);
+            for (int i = 0; i < size; i++) {
+                minutes.set(i, Long.MIN_VALUE);
+            }
+        }
+
+        void add(long minute, long count) {
+            int slot = (int) Math.floorMod(minute, (long) minutes.length());
+            if (minutes.get(slot) != minute) {
+                synchronized (this) {
+                    if (minutes.get(slot) != minute) {
+                        hits.set(slot, 0);
+                        minutes.set(slot, minute);
+                    }
+                }
+            }
+            hits.addAndGet(slot, count);
+        }
+
+        long sum(long from, long to) {
+            long total = 0;
+            for (int slot = 0; slot < minutes.length(); slot++) {
+                long minute = minutes.get(slot);
+                if (minute >= from && minute < to) {
+                    total += hits.get(slot);
+                }
+            }
+            return total;
+        }
+    }
+
+    private static class ViewStatsBucket {
+        private final String app;
+        private final long minute;
+        private final long hits;
+
+        ViewStatsBucket(String app, long minute, long hits) {
+            this.app = app;
+            this.minute = minute;
+            this.hits = hits;
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package ru.practicum.ewm.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Управление диапазонными партициями таблицы stats по time_create: партиции на interval вперёд
+ * создаются заранее, партиции старше retention-days удаляются целиком вместо построчного удаления.
+ * Строки вне созданных партиций попадают в партицию по умолчанию. При создании партиции строки её диапазона
+ * переносятся из партиции по умолчанию, иначе Postgres не создаст партицию.
+ * Саму партиционированную таблицу, партицию по умолчанию и индексы создают миграции Flyway.
+ * <p>
+ * Удаление партиций теряет сырые просмотры. Неуникальная статистика и approx=true продолжают считаться
+ * по агрегатам stats_rollup и stats_hll, но точные уникальные посещения (unique=true без approx)
+ * и неполные минуты на краях интервала считаются только по сырым просмотрам и за удаленный период
+ * будут занижены.
+ * <p>
+ * Партиция по умолчанию по сроку хранения не очищается. В ней лежат только просмотры вне созданных партиций:
+ * с time_create дальше ahead, которые переносятся при создании их партиции, и с time_create старше первой
+ * партиции, принятые уже после её удаления. Строки таблицы stats, созданной до партиционирования,
+ * миграция PartitionLegacyStats раскладывает по помесячным партициям, и срок хранения их покрывает.
+ */
+@Slf4j
+@Component
+public class StatsPartitionManager implements InitializingBean {
+    private static final DateTimeFormatter NAME_FORMATTER = DateTimeFormatter.ofPattern("yyyyMMdd");
+    private static final Pattern UPPER_BOUND = Pattern.compile("TO \\('([^']+)'\\)");
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ChronoUnit interval;
+    private final int ahead;
+    private final int retentionDays;
+
+    public StatsPartitionManager(JdbcTemplate jdbcTemplate,
+                                 TransactionTemplate transactionTemplate,
+                                 @Value("${stats.partition.interval:MONTH}") String interval,
+                                 @Value("${stats.partition.ahead:2}") int ahead,
+                                 @Value("${stats.partition.retention-days:0}") int retentionDays) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.interval = "DAY".equals(interval) ? ChronoUnit.DAYS : ChronoUnit.MONTHS;
+        this.ahead = ahead;
+        this.retentionDays = retentionDays;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        maintain();
+    }
+
+    /**
+     * Создание партиций вперёд и удаление партиций старше срока хранения
+     */
+    @Scheduled(cron = "${stats.partition.cron:0 0 3 * * *}")
+    public void maintain() {
+        LocalDate start = intervalStart(LocalDate.now());
+        for (int i = 0; i <= ahead; i++) {
+            createPartition(start.plus(i, interval), start.plus(i + 1L, interval));
+        }
+        if (retentionDays > 0) {
+            dropPartitionsBefore(LocalDate.now().minusDays(retentionDays).atStartOfDay());
+        }
+    }
+
+    /**
+     * Создание партиции с переносом строк её диапазона из партиции по умолчанию в одной транзакции.
+     * Ошибка не подавляется: при старте она останавливает сервис, а не оставляет диапазон в партиции по умолчанию.
+     */
+    private void createPartition(LocalDate from, LocalDate to) {
+        String name = "stats_p" + from.format(NAME_FORMATTER);
+        String range = "time_create >= '" + from.atStartOfDay() + "' AND time_create < '" + to.atStartOfDay() + "'";
+        transactionTemplate.executeWithoutResult(status -> {
+            Boolean exists = jdbcTemplate.queryForObject("SELECT to_regclass(?) IS NOT NULL", Boolean.class, name);
+            if (Boolean.TRUE.equals(exists)) {
+                return;
+            }
+            String defaultPartition = jdbcTemplate.queryForObject("SELECT partdefid::regclass::text " +
+                    "FROM pg_partitioned_table WHERE partrelid = 'stats'::regclass", String.class);
+            jdbcTemplate.execute("CREATE TABLE " + name + " (LIKE stats INCLUDING DEFAULTS)");
+            int moved = jdbcTemplate.update("WITH moved AS (DELETE FROM " + defaultPartition + " WHERE " + range +
+                    " RETURNING id, app, uri, ip, time_create) " +
+                    "INSERT INTO " + name + " (id, app, uri, ip, time_create) SELECT * FROM moved");
+            jdbcTemplate.execute("ALTER TABLE stats ATTACH PARTITION " + name +
+                    " FOR VALUES FROM ('" + from.atStartOfDay() + "') TO ('" + to.atStartOfDay() + "')");
+            if (moved > 0) {
+                log.info("Создана партиция {}, перенесено просмотров из {}: {}", name, defaultPartition, moved);
+            }
+        });
+    }
+
+    private void dropPartitionsBefore(LocalDateTime cutoff) {
+        List<Map<String, Object>> partitions = jdbcTemplate.queryForList(
+                "SELECT c.relname AS name, pg_get_expr(c.relpartbound, c.oid) AS bound " +
+                        "FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid " +
+                        "WHERE i.inhparent = 'stats'::regclass");
+        for (Map<String, Object> partition : partitions) {
+            Matcher matcher = UPPER_BOUND.matcher((String) partition.get("bound"));
+            if (!matcher.find()) {
+                continue;
+            }
+            LocalDateTime upper = LocalDateTime.parse(matcher.group(1).replace(' ', 'T'));
+            if (!upper.isAfter(cutoff)) {
+                log.info("Удаление партиции {} с просмотрами до {}", partition.get("name"), upper);
+                jdbcTemplate.execute("DROP TABLE " + partition.get("name"));
+            }
+        }
+    }
+
+    private LocalDate intervalStart(LocalDate date) {
+        return interval == ChronoUnit.DAYS ? date : date.withDayOfMonth(1);
+    }
+}
@@ -1,5 +1,6 @@
 package ru.practicum.ewm.service;
 
+import ru.practicum.ewm.EndPointHitBatchResultDto;
 import ru.practicum.ewm.ViewStatsDto;
 import ru.practicum.ewm.EndPointHitDto;
 import ru.practicum.ewm.model.EndPointHit;
@@ -16,6 +17,14 @@ public interface StatsService {
      */
     EndPointHit postEndPointHit(EndPointHitDto endPointHitDto);
 
+    /**
+     * Пакетное создание EndPoint
+     *
+     * @param endPointHitDtos EndPoint
+     * @return Количество принятых EndPoint по пачкам
+     */
+    EndPointHitBatchResultDto postEndPointHits(List<EndPointHitDto> endPointHitDtos);
+
     /**
      * Вывод статистики по EndPoint
      *
@@ -23,7 +32,8 @@ public interface StatsService {
      * @param end    Конец временного промежутка
      * @param uris   URI
      * @param unique Уникальные посещения
+     * @param approx Приближённый подсчёт уникальных посещений
      * @return Статистика посещения
      */
-    List<ViewStatsDto> getViewStats(String start, String end, String[] uris, boolean unique);
+    List<ViewStatsDto> getViewStats(String start, String end, String[] uris, boolean unique, boolean approx);
 }
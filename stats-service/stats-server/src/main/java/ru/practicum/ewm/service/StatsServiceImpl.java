@@ -1,23 +1,48 @@
 package ru.practicum.ewm.service;
 
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.ewm.EndPointHitBatchResultDto;
 import ru.practicum.ewm.ViewStatsDto;
 import ru.practicum.ewm.EndPointHitDto;
 import ru.practicum.ewm.exception.IncorrectDataException;
 import ru.practicum.ewm.model.EndPointHit;
 import ru.practicum.ewm.model.EndPointHitMapper;
+import ru.practicum.ewm.model.Granularity;
+import ru.practicum.ewm.model.TimeSegment;
+import ru.practicum.ewm.repository.RollupRepository;
+import ru.practicum.ewm.repository.StatsJdbcRepository;
 import ru.practicum.ewm.repository.StatsRepository;
 
+import javax.validation.Validator;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
+@Slf4j
 public class StatsServiceImpl implements StatsService {
     private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
     private final StatsRepository statsRepository;
+    private static final List<Granularity> ROLLUP_LEVELS = List.of(Granularity.DAY, Granularity.HOUR,
+            Granularity.MINUTE);
+    private final StatsJdbcRepository statsJdbcRepository;
+    private final RollupRepository rollupRepository;
+    private final ApproxUniqueCounter approxUniqueCounter;
+    private final HotUriCounters hotUriCounters;
+    private final Validator validator;
+    @Value("${stats.ingest.batch-size:500}")
+    private int batchSize;
 
     /**
      * Запрос на создание EndPointa
@@ -26,8 +51,51 @@ public class StatsServiceImpl implements StatsService {
      * @return Подтверждение создания EndPoint
      */
     @Override
+    @Transactional
     public EndPointHit postEndPointHit(EndPointHitDto endPointHitDto) {
-        return statsRepository.save(EndPointHitMapper.toEndpointHit(endPointHitDto));
+        EndPointHit hit = statsRepository.save(EndPointHitMapper.toEndpointHit(endPointHitDto));
+        rollupRepository.increment(List.of(hit));
+        approxUniqueCounter.add(List.of(hit));
+        hotUriCounters.record(List.of(hit));
+        return hit;
+    }
+
+    /**
+     * Пакетное создание EndPoint. Каждый EndPoint проверяется отдельно: некорректный отклоняется,
+     * остальные сохраняются, поэтому один испорченный EndPoint не теряет всю пачку
+     *
+     * @param endPointHitDtos EndPoint
+     * @return Количество принятых и отклоненных EndPoint, принятые по пачкам
+     */
+    @Override
+    @Transactional
+    public EndPointHitBatchResultDto postEndPointHits(List<EndPointHitDto> endPointHitDtos) {
+        List<EndPointHit> hits = new ArrayList<>(endPointHitDtos.size());
+        for (EndPointHitDto endPointHitDto : endPointHitDtos) {
+            toValidHit(endPointHitDto).ifPresent(hits::add);
+        }
+        int rejected = endPointHitDtos.size() - hits.size();
+        if (rejected > 0) {
+            log.warn("Отклонено некорректных EndPointHit: {} из {}", rejected, endPointHitDtos.size());
+        }
+        List<Integer> batches = statsJdbcRepository.insertAll(hits, batchSize);
+        rollupRepository.increment(hits);
+        approxUniqueCounter.add(hits);
+        hotUriCounters.record(hits);
+        return new EndPointHitBatchResultDto(batches.stream().mapToInt(Integer::intValue).sum(), rejected, batches);
+    }
+
+    private Optional<EndPointHit> toValidHit(EndPointHitDto endPointHitDto) {
+        if (endPointHitDto == null || !validator.validate(endPointHitDto).isEmpty()) {
+            log.debug("Отклонен EndPointHit {}", endPointHitDto);
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(EndPointHitMapper.toEndpointHit(endPointHitDto));
+        } catch (IncorrectDataException e) {
+            log.debug("Отклонен EndPointHit {}: {}", endPointHitDto, e.getMessage());
+            return Optional.empty();
+        }
     }
 
     /**
@@ -37,25 +105,68 @@ public class StatsServiceImpl implements StatsService {
      * @param end    Конец временного промежутка
      * @param uris   URI
      * @param unique Уникальные посещения
+     * @param approx Приближённый подсчёт уникальных посещений
      * @return Статистика посещения
      */
     @Override
-    public List<ViewStatsDto> getViewStats(String start, String end, String[] uris, boolean unique) {
+    public List<ViewStatsDto> getViewStats(String start, String end, String[] uris, boolean unique, boolean approx) {
         LocalDateTime startDataTime = LocalDateTime.parse(start, FORMATTER);
         LocalDateTime endDataTime = LocalDateTime.parse(end, FORMATTER);
         if (startDataTime.isAfter(endDataTime)) {
             throw new IncorrectDataException();
         }
+        if (unique && approx) {
+            return approxUniqueCounter.countUnique(startDataTime, endDataTime.plusSeconds(1),
+                    uris == null ? null : List.of(uris));
+        }
         if (uris != null && unique) {
             return statsRepository.getStatsUriAndUnique(startDataTime, endDataTime, List.of(uris));
         }
-        if (uris != null) {
-            return statsRepository.getStatsUri(startDataTime, endDataTime, List.of(uris));
-        }
         if (unique) {
             return statsRepository.getStatsUnique(startDataTime, endDataTime);
         }
+        return getStatsFromRollups(startDataTime, endDataTime.plusSeconds(1), uris == null ? null : List.of(uris));
+    }
 
-        return statsRepository.getStats(startDataTime, endDataTime);
+    /**
+     * Неуникальная статистика: свежие минуты по известным URI считаются из памяти,
+     * целые бакеты читаются из агрегатов, рваные края - из сырых просмотров
+     *
+     * @param from Начало интервала включительно
+     * @param to   Конец интервала не включительно
+     * @param uris URI, null - все
+     * @return Статистика посещения
+     */
+    private List<ViewStatsDto> getStatsFromRollups(LocalDateTime from, LocalDateTime to, List<String> uris) {
+        Map<String, ViewStatsDto> stats = new LinkedHashMap<>();
+        Optional<LocalDateTime[]> hot = uris == null ? Optional.empty() : hotUriCounters.servableRange(from, to, uris);
+        if (hot.isPresent()) {
+            LocalDateTime hotFrom = hot.get()[0];
+            LocalDateTime hotTo = hot.get()[1];
+            mergeInto(stats, hotUriCounters.sum(hotFrom, hotTo, uris));
+            collectFromRollups(stats, from, hotFrom, uris);
+            collectFromRollups(stats, hotTo, to, uris);
+        } else {
+            collectFromRollups(stats, from, to, uris);
+        }
+        return stats.values().stream()
+                .sorted(Comparator.comparing(ViewStatsDto::getHits).reversed())
+                .collect(Collectors.toList());
+    }
+
+    private void collectFromRollups(Map<String, ViewStatsDto> stats, LocalDateTime from, LocalDateTime to,
+                                    List<String> uris) {
+        for (TimeSegment segment : TimeSegment.split(from, to, ROLLUP_LEVELS)) {
+            mergeInto(stats, segment.getGranularity() == null
+                    ? statsJdbcRepository.countHits(segment.getFrom(), segment.getTo(), uris)
+                    : rollupRepository.sumHits(segment.getGranularity(), segment.getFrom(), segment.getTo(), uris));
+        }
+    }
+
+    private static void mergeInto(Map<String, ViewStatsDto> stats, List<ViewStatsDto> part) {
+        for (ViewStatsDto viewStats : part) {
+            stats.merge(viewStats.getApp() + '\u0000' + viewStats.getUri(), viewStats, (left, right) ->
+                    new ViewStatsDto(left.getApp(), left.getUri(), left.getHits() + right.getHits()));
+        }
     }
 }
@@ -0,0 +1,28 @@
+CREATE SEQUENCE IF NOT EXISTS stats_id_seq;
+
+CREATE TABLE IF NOT EXISTS stats (
+  id BIGINT NOT NULL DEFAULT nextval('stats_id_seq'),
+  app VARCHAR(500) NOT NULL,
+  uri VARCHAR(500) NOT NULL,
+  ip VARCHAR(500) NOT NULL,
+  time_create TIMESTAMP NOT NULL
+) PARTITION BY RANGE (time_create);
+
+CREATE TABLE IF NOT EXISTS stats_rollup (
+  granularity VARCHAR(10) NOT NULL,
+  bucket_start TIMESTAMP NOT NULL,
+  app VARCHAR(500) NOT NULL,
+  uri VARCHAR(500) NOT NULL,
+  hits BIGINT NOT NULL,
+  CONSTRAINT pk_stats_rollup PRIMARY KEY (granularity, bucket_start, app, uri)
+);
+
+CREATE TABLE IF NOT EXISTS stats_hll (
+  granularity VARCHAR(10) NOT NULL,
+  bucket_start TIMESTAMP NOT NULL,
+  app VARCHAR(500) NOT NULL,
+  uri VARCHAR(500) NOT NULL,
+  precision SMALLINT NOT NULL,
+  sketch BYTEA NOT NULL,
+  CONSTRAINT pk_stats_hll PRIMARY KEY (granularity, bucket_start, app, uri, precision)
+);
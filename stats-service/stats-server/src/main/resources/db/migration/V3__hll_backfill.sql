@@ -0,0 +1,9 @@
+-- Progress of building stats_hll sketches of one precision from raw hits.
+-- backfilled_until is the first day not built yet; it is written in the same transaction as the sketches
+-- of the previous day, and completed is set in the transaction of the last day
+CREATE TABLE IF NOT EXISTS stats_hll_backfill (
+  precision SMALLINT NOT NULL,
+  backfilled_until DATE NOT NULL,
+  completed BOOLEAN NOT NULL,
+  CONSTRAINT pk_stats_hll_backfill PRIMARY KEY (precision)
+);
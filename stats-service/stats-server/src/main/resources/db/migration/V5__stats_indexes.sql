@@ -0,0 +1,2 @@
+-- Range queries on raw hits; declared on the partitioned table, so every partition gets it on attach
+CREATE INDEX IF NOT EXISTS idx_stats_time_create ON stats (time_create);
@@ -1,8 +0,0 @@
-
-CREATE TABLE IF NOT EXISTS stats (
-  id BIGINT GENERATED BY DEFAULT AS IDENTITY NOT NULL,
-  app VARCHAR(500) NOT NULL,
-  uri VARCHAR(500) NOT NULL,
-  ip VARCHAR(500) NOT NULL,
-  time_create TIMESTAMP NOT NULL
-);
\ No newline at end of file
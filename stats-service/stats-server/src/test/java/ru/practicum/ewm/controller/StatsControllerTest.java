@@ -0,0 +1,77 @@
+package ru.practicum.ewm.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import ru.practicum.ewm.TestDatabaseConfiguration;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.Matchers.contains;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Пакетный приём просмотров: некорректные отклоняются по одному, остальные сохраняются
+ */
+@SpringBootTest(properties = "stats.ingest.batch-size=2")
+@AutoConfigureMockMvc
+@Import(TestDatabaseConfiguration.class)
+class StatsControllerTest {
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void batchCountsAcceptedAndRejectedHits() throws Exception {
+        List<Map<String, String>> hits = Arrays.asList(
+                hit("/events/1", "192.168.0.1", "2030-01-10 10:00:00"),
+                hit("/events/1", "192.168.0.2", "2030-01-10 10:05:00"),
+                hit("/events/1", null, "2030-01-10 10:06:00"),
+                hit("/events/1", "192.168.0.3", "10.01.2030 10:07"),
+                null,
+                hit("/events/1", "192.168.0.1", "2030-01-10 11:00:00"));
+
+        mockMvc.perform(post("/hits")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(hits)))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.accepted").value(3))
+                .andExpect(jsonPath("$.rejected").value(3))
+                .andExpect(jsonPath("$.batches", contains(2, 1)));
+
+        mockMvc.perform(get("/stats")
+                        .param("start", "2030-01-10 00:00:00")
+                        .param("end", "2030-01-10 23:59:59")
+                        .param("uris", "/events/1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].hits").value(3));
+        mockMvc.perform(get("/stats")
+                        .param("start", "2030-01-10 00:00:00")
+                        .param("end", "2030-01-10 23:59:59")
+                        .param("uris", "/events/1")
+                        .param("unique", "true"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].hits").value(2));
+    }
+
+    private static Map<String, String> hit(String uri, String ip, String timestamp) {
+        Map<String, String> hit = new HashMap<>();
+        hit.put("app", "ewm-main-service");
+        hit.put("uri", uri);
+        hit.put("ip", ip);
+        hit.put("timestamp", timestamp);
+        return hit;
+    }
+}
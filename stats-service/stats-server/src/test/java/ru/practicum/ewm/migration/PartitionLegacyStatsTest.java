@@ -0,0 +1,112 @@
+package ru.practicum.ewm.migration;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.ewm.service.StatsPartitionManager;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Перевод таблицы stats, созданной до партиционирования, на помесячные партиции миграциями Flyway
+ */
+class PartitionLegacyStatsTest {
+    private final LocalDateTime month = LocalDate.now().withDayOfMonth(1).atStartOfDay();
+    private EmbeddedPostgres postgres;
+    private HikariDataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        postgres = EmbeddedPostgres.start();
+        dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl(postgres.getJdbcUrl("postgres", "postgres"));
+        jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        dataSource.close();
+        postgres.close();
+    }
+
+    @Test
+    void legacyRowsAreSplitIntoMonthlyPartitions() {
+        jdbcTemplate.execute("CREATE TABLE stats (id BIGINT GENERATED BY DEFAULT AS IDENTITY NOT NULL, " +
+                "app VARCHAR(500) NOT NULL, uri VARCHAR(500) NOT NULL, ip VARCHAR(500) NOT NULL, " +
+                "time_create TIMESTAMP NOT NULL)");
+        insertLegacy(month.minusMonths(14).plusDays(3));
+        insertLegacy(month.minusMonths(2).plusDays(10));
+        insertLegacy(month.minusMonths(2).plusDays(11));
+        insertLegacy(month.plusHours(5));
+
+        migrate();
+
+        assertEquals(List.of("stats_default", partition(month.minusMonths(14)), partition(month.minusMonths(2))),
+                partitions());
+        assertEquals(1, count("stats_default"));
+        assertEquals(2, count(partition(month.minusMonths(2))));
+        assertEquals(4, count("stats"));
+        assertTrue(jdbcTemplate.queryForObject("SELECT to_regclass('stats_legacy') IS NULL", Boolean.class));
+        assertTrue(jdbcTemplate.queryForObject("SELECT EXISTS (SELECT 1 FROM pg_indexes " +
+                "WHERE tablename = ? AND indexdef LIKE '%(time_create)%')", Boolean.class,
+                partition(month.minusMonths(2))));
+        jdbcTemplate.update("INSERT INTO stats (app, uri, ip, time_create) VALUES ('app', '/events/1', 'ip', ?)",
+                month.plusHours(6));
+        assertEquals(5L, jdbcTemplate.queryForObject("SELECT max(id) FROM stats", Long.class));
+
+        // Срок хранения покрывает бывшие строки stats, а текущие строки забираются из партиции по умолчанию
+        new StatsPartitionManager(jdbcTemplate, new TransactionTemplate(new DataSourceTransactionManager(dataSource)),
+                "MONTH", 0, 365).maintain();
+        assertEquals(List.of("stats_default", partition(month.minusMonths(2)), partition(month)), partitions());
+        assertEquals(0, count("stats_default"));
+        assertEquals(4, count("stats"));
+    }
+
+    @Test
+    void freshSchemaGetsDefaultPartition() {
+        migrate();
+
+        assertEquals(List.of("stats_default"), partitions());
+    }
+
+    private void migrate() {
+        Flyway.configure()
+                .dataSource(dataSource)
+                .locations("classpath:db/migration", "classpath:ru/practicum/ewm/migration")
+                .baselineOnMigrate(true)
+                .baselineVersion("0")
+                .load()
+                .migrate();
+    }
+
+    private void insertLegacy(LocalDateTime timestamp) {
+        jdbcTemplate.update("INSERT INTO stats (app, uri, ip, time_create) VALUES ('app', '/events/1', 'ip', ?)",
+                timestamp);
+    }
+
+    private List<String> partitions() {
+        return jdbcTemplate.queryForList("SELECT c.relname FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid " +
+                "WHERE i.inhparent = 'stats'::regclass ORDER BY c.relname", String.class);
+    }
+
+    private int count(String table) {
+        return jdbcTemplate.queryForObject("SELECT count(*) FROM " + table, Integer.class);
+    }
+
+    private static String partition(LocalDateTime from) {
+        return "stats_p" + from.toLocalDate().toString().replace("-", "");
+    }
+}
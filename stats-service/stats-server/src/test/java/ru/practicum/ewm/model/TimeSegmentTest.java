@@ -0,0 +1,91 @@
+package ru.practicum.ewm.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Разбиение интервала статистики на целые бакеты агрегатов и рваные края из сырых просмотров
+ */
+class TimeSegmentTest {
+    private static final List<Granularity> LEVELS = List.of(Granularity.DAY, Granularity.HOUR, Granularity.MINUTE);
+    private static final LocalDateTime DAY = LocalDateTime.of(2030, 1, 10, 0, 0);
+
+    @Test
+    void emptyIntervalHasNoSegments() {
+        assertTrue(TimeSegment.split(DAY, DAY, LEVELS).isEmpty());
+        assertTrue(TimeSegment.split(DAY.plusHours(1), DAY, LEVELS).isEmpty());
+    }
+
+    @Test
+    void alignedIntervalIsOneBucketRange() {
+        assertEquals(List.of(new TimeSegment(Granularity.DAY, DAY, DAY.plusDays(3))),
+                TimeSegment.split(DAY, DAY.plusDays(3), LEVELS));
+    }
+
+    @Test
+    void intervalInsideOneMinuteIsRaw() {
+        LocalDateTime from = DAY.plusSeconds(10);
+        LocalDateTime to = DAY.plusSeconds(50);
+        assertEquals(List.of(new TimeSegment(null, from, to)), TimeSegment.split(from, to, LEVELS));
+    }
+
+    @Test
+    void raggedEdgesGoToFinerLevels() {
+        LocalDateTime from = DAY.minusHours(2).minusMinutes(3).minusSeconds(15);
+        LocalDateTime to = DAY.plusDays(2).plusHours(1).plusMinutes(2).plusSeconds(30);
+
+        assertEquals(List.of(
+                        new TimeSegment(null, from, DAY.minusHours(2).minusMinutes(3)),
+                        new TimeSegment(Granularity.MINUTE, DAY.minusHours(2).minusMinutes(3), DAY.minusHours(2)),
+                        new TimeSegment(Granularity.HOUR, DAY.minusHours(2), DAY),
+                        new TimeSegment(Granularity.DAY, DAY, DAY.plusDays(2)),
+                        new TimeSegment(Granularity.HOUR, DAY.plusDays(2), DAY.plusDays(2).plusHours(1)),
+                        new TimeSegment(Granularity.MINUTE, DAY.plusDays(2).plusHours(1),
+                                DAY.plusDays(2).plusHours(1).plusMinutes(2)),
+                        new TimeSegment(null, DAY.plusDays(2).plusHours(1).plusMinutes(2), to)),
+                TimeSegment.split(from, to, LEVELS));
+    }
+
+    @Test
+    void intervalShorterThanDayAcrossMidnightUsesHours() {
+        LocalDateTime from = DAY.minusHours(3);
+        LocalDateTime to = DAY.plusHours(5);
+        assertEquals(List.of(new TimeSegment(Granularity.HOUR, from, to)), TimeSegment.split(from, to, LEVELS));
+    }
+
+    @Test
+    void segmentsCoverIntervalWithoutGaps() {
+        LocalDateTime from = LocalDateTime.of(2029, 12, 31, 23, 59, 59);
+        LocalDateTime to = LocalDateTime.of(2030, 3, 1, 0, 0, 1);
+        List<TimeSegment> segments = TimeSegment.split(from, to, LEVELS);
+
+        assertEquals(from, segments.get(0).getFrom());
+        assertEquals(to, segments.get(segments.size() - 1).getTo());
+        for (int i = 1; i < segments.size(); i++) {
+            assertEquals(segments.get(i - 1).getTo(), segments.get(i).getFrom());
+        }
+        for (TimeSegment segment : segments) {
+            if (segment.getGranularity() != null) {
+                assertEquals(segment.getFrom(), segment.getGranularity().truncate(segment.getFrom()));
+                assertEquals(segment.getTo(), segment.getGranularity().truncate(segment.getTo()));
+            }
+        }
+    }
+
+    @Test
+    void bucketBoundaries() {
+        LocalDateTime time = LocalDateTime.of(2030, 1, 10, 13, 45, 30);
+        assertEquals(LocalDateTime.of(2030, 1, 10, 13, 45), Granularity.MINUTE.truncate(time));
+        assertEquals(LocalDateTime.of(2030, 1, 10, 13, 46), Granularity.MINUTE.ceil(time));
+        assertEquals(LocalDateTime.of(2030, 1, 10, 13, 0), Granularity.HOUR.truncate(time));
+        assertEquals(LocalDateTime.of(2030, 1, 10, 14, 0), Granularity.HOUR.ceil(time));
+        assertEquals(DAY, Granularity.DAY.truncate(time));
+        assertEquals(DAY.plusDays(1), Granularity.DAY.ceil(time));
+        assertEquals(DAY, Granularity.DAY.ceil(DAY));
+    }
+}
@@ -0,0 +1,55 @@
+package ru.practicum.ewm.repository;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.practicum.ewm.TestDatabaseConfiguration;
+import ru.practicum.ewm.ViewStatsDto;
+import ru.practicum.ewm.model.EndPointHit;
+import ru.practicum.ewm.model.Granularity;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Агрегаты всех гранулярностей накапливаются повторными вставками в тот же бакет
+ */
+@SpringBootTest
+@Import(TestDatabaseConfiguration.class)
+class RollupRepositoryTest {
+    private static final String URI = "/events/rollup";
+    private static final LocalDateTime HOUR = LocalDateTime.of(2031, 5, 20, 14, 0);
+    @Autowired
+    private RollupRepository rollupRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void upsertAddsToExistingBuckets() {
+        rollupRepository.increment(List.of(hit(HOUR.plusMinutes(1)), hit(HOUR.plusMinutes(1).plusSeconds(30))));
+        rollupRepository.increment(List.of(hit(HOUR.plusMinutes(1).plusSeconds(59)), hit(HOUR.plusMinutes(40))));
+
+        assertEquals(3L, bucket(Granularity.MINUTE, HOUR.plusMinutes(1)));
+        assertEquals(1L, bucket(Granularity.MINUTE, HOUR.plusMinutes(40)));
+        assertEquals(4L, bucket(Granularity.HOUR, HOUR));
+        assertEquals(4L, bucket(Granularity.DAY, HOUR.toLocalDate().atStartOfDay()));
+        assertEquals(List.of(new ViewStatsDto("ewm-main-service", URI, 4L)),
+                rollupRepository.sumHits(Granularity.MINUTE, HOUR, HOUR.plusHours(1), List.of(URI)));
+        assertEquals(List.of(new ViewStatsDto("ewm-main-service", URI, 3L)),
+                rollupRepository.sumHits(Granularity.MINUTE, HOUR, HOUR.plusMinutes(2), List.of(URI)));
+    }
+
+    private Long bucket(Granularity granularity, LocalDateTime bucketStart) {
+        return jdbcTemplate.queryForObject("SELECT hits FROM stats_rollup " +
+                        "WHERE granularity = ? AND bucket_start = ? AND uri = ?", Long.class,
+                granularity.name(), bucketStart, URI);
+    }
+
+    private static EndPointHit hit(LocalDateTime timestamp) {
+        return EndPointHit.builder().app("ewm-main-service").uri(URI).ip("192.168.0.1").timestamp(timestamp).build();
+    }
+}
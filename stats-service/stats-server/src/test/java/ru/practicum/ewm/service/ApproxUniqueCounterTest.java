@@ -0,0 +1,74 @@
+package ru.practicum.ewm.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.practicum.ewm.TestDatabaseConfiguration;
+import ru.practicum.ewm.ViewStatsDto;
+import ru.practicum.ewm.model.EndPointHit;
+import ru.practicum.ewm.repository.StatsJdbcRepository;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Скетчи принятых просмотров из памяти и построение скетчей по сырым просмотрам с отметкой о прогрессе
+ */
+@SpringBootTest(properties = "stats.hll.flush-interval-ms=3600000")
+@Import(TestDatabaseConfiguration.class)
+class ApproxUniqueCounterTest {
+    @Autowired
+    private ApproxUniqueCounter approxUniqueCounter;
+    @Autowired
+    private StatsJdbcRepository statsJdbcRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void countsSketchesBeforeAndAfterFlush() {
+        LocalDateTime hour = LocalDateTime.of(2031, 3, 3, 10, 0);
+        approxUniqueCounter.add(List.of(hit("/events/hll", "10.0.0.1", hour.plusMinutes(1)),
+                hit("/events/hll", "10.0.0.2", hour.plusMinutes(2)),
+                hit("/events/hll", "10.0.0.1", hour.plusMinutes(3))));
+        List<ViewStatsDto> expected = List.of(new ViewStatsDto("ewm-main-service", "/events/hll", 2L));
+
+        assertEquals(0, sketches("/events/hll"));
+        assertEquals(expected, approxUniqueCounter.countUnique(hour, hour.plusHours(1), List.of("/events/hll")));
+        approxUniqueCounter.flush();
+        assertEquals(2, sketches("/events/hll"));
+        assertEquals(expected, approxUniqueCounter.countUnique(hour, hour.plusHours(1), List.of("/events/hll")));
+    }
+
+    @Test
+    void backfillResumesFromProgressMark() {
+        LocalDate today = LocalDate.now();
+        statsJdbcRepository.insertAll(List.of(hit("/events/backfill", "10.0.0.1", today.minusDays(2).atTime(12, 0)),
+                hit("/events/backfill", "10.0.0.2", today.minusDays(1).atTime(12, 0))), 10);
+        jdbcTemplate.update("UPDATE stats_hll_backfill SET backfilled_until = ?, completed = false",
+                today.minusDays(1));
+
+        approxUniqueCounter.backfill();
+
+        // Сутки до отметки считаются построенными и не перечитываются
+        assertEquals(2, sketches("/events/backfill"));
+        assertEquals(List.of(new ViewStatsDto("ewm-main-service", "/events/backfill", 1L)),
+                approxUniqueCounter.countUnique(today.minusDays(1).atStartOfDay(), today.atStartOfDay(),
+                        List.of("/events/backfill")));
+        assertTrue(jdbcTemplate.queryForObject("SELECT completed AND backfilled_until = ? FROM stats_hll_backfill",
+                Boolean.class, today.plusDays(1)));
+    }
+
+    private int sketches(String uri) {
+        return jdbcTemplate.queryForObject("SELECT count(*) FROM stats_hll WHERE uri = ?", Integer.class, uri);
+    }
+
+    private static EndPointHit hit(String uri, String ip, LocalDateTime timestamp) {
+        return EndPointHit.builder().app("ewm-main-service").uri(uri).ip(ip).timestamp(timestamp).build();
+    }
+}
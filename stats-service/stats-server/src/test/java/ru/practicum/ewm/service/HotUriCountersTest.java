@@ -0,0 +1,158 @@
+package ru.practicum.ewm.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+import ru.practicum.ewm.ViewStatsDto;
+import ru.practicum.ewm.model.EndPointHit;
+import ru.practicum.ewm.repository.RollupRepository;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Поминутное кольцо счётчиков горячих URI и правило полноты памяти
+ */
+class HotUriCountersTest {
+    private static final int WINDOW = 10;
+    private static final String APP = "ewm-main-service";
+    private final RollupRepository rollupRepository = mock(RollupRepository.class);
+    private final LocalDateTime minute = LocalDateTime.now().truncatedTo(ChronoUnit.MINUTES);
+
+    @Test
+    void sumsRecordedHitsByMinute() {
+        HotUriCounters counters = counters(100);
+        counters.record(List.of(hit("/events/1", minute), hit("/events/1", minute.minusMinutes(2)),
+                hit("/events/1", minute.minusMinutes(2)), hit("/events/2", minute)));
+
+        assertEquals(List.of(new ViewStatsDto(APP, "/events/1", 3L)), sum(counters, "/events/1"));
+        assertEquals(List.of(new ViewStatsDto(APP, "/events/1", 2L)),
+                counters.sum(minute.minusMinutes(2), minute.minusMinutes(1), List.of("/events/1")));
+    }
+
+    @Test
+    void servesWholeMinutesInsideWindowOnly() {
+        HotUriCounters counters = counters(100);
+        Optional<LocalDateTime[]> range = counters.servableRange(minute.minusHours(1).plusSeconds(30),
+                minute.plusHours(1), List.of("/events/1"));
+
+        assertTrue(range.isPresent());
+        assertEquals(minute.minusMinutes(WINDOW - 1), range.get()[0]);
+        assertEquals(minute.plusMinutes(1), range.get()[1]);
+        assertTrue(counters.servableRange(minute.minusHours(2), minute.minusHours(1), List.of("/events/1"))
+                .isEmpty());
+    }
+
+    @Test
+    void ringKeepsEveryAcceptedMinuteApart() {
+        HotUriCounters counters = counters(100);
+        List<EndPointHit> hits = new ArrayList<>();
+        for (int offset = -WINDOW - 5; offset <= 2; offset++) {
+            hits.add(hit("/events/1", minute.plusMinutes(offset)));
+        }
+        counters.record(hits);
+
+        // Принимаются минуты окна и две минуты вперёд, слоты кольца под них не пересекаются
+        assertEquals(List.of(new ViewStatsDto(APP, "/events/1", WINDOW + 2L)),
+                counters.sum(minute.minusHours(1), minute.plusHours(1), List.of("/events/1")));
+    }
+
+    @Test
+    void prefillsFromMinuteRollups() {
+        doAnswer(invocation -> {
+            RollupRepository.MinuteConsumer consumer = invocation.getArgument(1);
+            consumer.accept(APP, "/events/1", minute.minusMinutes(1), 5);
+            consumer.accept(APP, "/events/1", minute, 2);
+            return null;
+        }).when(rollupRepository).forEachMinute(any(), any());
+        HotUriCounters counters = counters(100);
+
+        assertEquals(List.of(new ViewStatsDto(APP, "/events/1", 7L)), sum(counters, "/events/1"));
+    }
+
+    @Test
+    void urisLeftOutOfMemoryRaiseFloor() {
+        doAnswer(invocation -> {
+            RollupRepository.MinuteConsumer consumer = invocation.getArgument(1);
+            consumer.accept(APP, "/events/1", minute, 1);
+            consumer.accept(APP, "/events/2", minute.minusMinutes(3), 1);
+            return null;
+        }).when(rollupRepository).forEachMinute(any(), any());
+        HotUriCounters counters = counters(1);
+
+        // /events/2 не поместился в память, поэтому из памяти отдаются только минуты после его последнего просмотра
+        LocalDateTime[] range = counters.servableRange(minute.minusHours(1), minute.plusMinutes(1),
+                List.of("/events/2")).orElseThrow();
+        assertEquals(minute.minusMinutes(2), range[0]);
+        assertTrue(sum(counters, "/events/2").isEmpty());
+    }
+
+    @Test
+    void sweepEvictsColdestAndRaisesFloor() {
+        HotUriCounters counters = counters(2);
+        counters.record(List.of(hit("/events/1", minute.minusMinutes(5)), hit("/events/2", minute.minusMinutes(3)),
+                hit("/events/3", minute)));
+
+        assertTrue(sum(counters, "/events/1").isEmpty());
+        LocalDateTime[] range = counters.servableRange(minute.minusHours(1), minute.plusMinutes(1),
+                List.of("/events/3")).orElseThrow();
+        assertEquals(minute.minusMinutes(4), range[0]);
+    }
+
+    @Test
+    void hitFarInFutureRaisesFloorPastIt() {
+        HotUriCounters counters = counters(100);
+        counters.record(List.of(hit("/events/1", minute.plusMinutes(30))));
+
+        assertTrue(counters.servableRange(minute.minusHours(1), minute.plusHours(1), List.of("/events/1"))
+                .isEmpty());
+    }
+
+    @Test
+    void countsHitsOnlyAfterCommit() {
+        HotUriCounters counters = counters(100);
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            counters.record(List.of(hit("/events/1", minute)));
+            assertTrue(sum(counters, "/events/1").isEmpty());
+            TransactionSynchronizationUtils.invokeAfterCommit(TransactionSynchronizationManager.getSynchronizations());
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertEquals(List.of(new ViewStatsDto(APP, "/events/1", 1L)), sum(counters, "/events/1"));
+    }
+
+    @Test
+    void disabledCountersServeNothing() {
+        HotUriCounters counters = new HotUriCounters(rollupRepository, false, WINDOW, 100);
+        counters.afterPropertiesSet();
+        counters.record(List.of(hit("/events/1", minute)));
+
+        assertTrue(counters.servableRange(minute.minusHours(1), minute.plusMinutes(1), List.of("/events/1"))
+                .isEmpty());
+    }
+
+    private HotUriCounters counters(int maxUris) {
+        HotUriCounters counters = new HotUriCounters(rollupRepository, true, WINDOW, maxUris);
+        counters.afterPropertiesSet();
+        return counters;
+    }
+
+    private List<ViewStatsDto> sum(HotUriCounters counters, String uri) {
+        return counters.sum(minute.minusHours(1), minute.plusMinutes(1), List.of(uri));
+    }
+
+    private static EndPointHit hit(String uri, LocalDateTime timestamp) {
+        return EndPointHit.builder().app(APP).uri(uri).ip("192.168.0.1").timestamp(timestamp.plusSeconds(20)).build();
+    }
+}